@@ -1,8 +1,10 @@
 package ru.leonidm.simplebeans.applications;
 
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.jetbrains.annotations.Unmodifiable;
 import org.jetbrains.annotations.UnmodifiableView;
+import ru.leonidm.simplebeans.aspects.async.AsyncExecutors;
 import ru.leonidm.simplebeans.beans.Autowired;
 import ru.leonidm.simplebeans.beans.Bean;
 import ru.leonidm.simplebeans.beans.BeanData;
@@ -10,13 +12,20 @@ import ru.leonidm.simplebeans.beans.BeanInitializer;
 import ru.leonidm.simplebeans.beans.BeansDependencyTree;
 import ru.leonidm.simplebeans.beans.Component;
 import ru.leonidm.simplebeans.beans.Configuration;
-import ru.leonidm.simplebeans.proxy.AspectInvocationHandler;
+import ru.leonidm.simplebeans.proxy.AdvancedProxy;
+import ru.leonidm.simplebeans.proxy.AopEngine;
 import ru.leonidm.simplebeans.proxy.ProxyClass;
+import ru.leonidm.simplebeans.proxy.ProxyFactory;
 import ru.leonidm.simplebeans.proxy.aspects.After;
+import ru.leonidm.simplebeans.proxy.aspects.AnnotatedMethods;
+import ru.leonidm.simplebeans.proxy.aspects.Around;
 import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.AsyncAdviceDispatcher;
 import ru.leonidm.simplebeans.proxy.aspects.Before;
+import ru.leonidm.simplebeans.proxy.aspects.PointCutIndex;
 import ru.leonidm.simplebeans.proxy.aspects.PointCutType;
 import ru.leonidm.simplebeans.proxy.aspects.WrappedPointCut;
+import ru.leonidm.simplebeans.proxy.weaving.Weaver;
 import ru.leonidm.simplebeans.utils.BcelClassScanner;
 import ru.leonidm.simplebeans.utils.ExceptionUtils;
 import ru.leonidm.simplebeans.utils.GeneralUtils;
@@ -24,40 +33,66 @@ import ru.leonidm.simplebeans.utils.GeneralUtils;
 import java.io.File;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumMap;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
-public final class ApplicationContext {
+public final class ApplicationContext implements AutoCloseable {
 
     private static final String BASE_PACKAGE_NAME = "ru.leonidm.simplebeans.";
     private static final Map<Class<?>, ApplicationContext> APPLICATION_CLASS_TO_CONTEXT = new HashMap<>();
+    private final Class<?> applicationClass;
+    private final boolean running;
     private final String packageName;
     private final ApplicationProperties properties;
+    private final AopEngine aopEngine;
+    private final boolean aopEnabled;
     private final BcelClassScanner bcelClassScanner;
     private final Map<BeanData, Object> beanClassToInstance = new HashMap<>();
-    private final Set<WrappedPointCut> pointCuts = new HashSet<>();
-    private final Map<Method, EnumMap<PointCutType, List<WrappedPointCut>>> pointCutsCache = new HashMap<>();
+    private final Set<WrappedPointCut> pointCuts = new CopyOnWriteArraySet<>();
+    private volatile PointCutIndex pointCutIndex = PointCutIndex.of(List.of());
+    private volatile Map<Method, EnumMap<PointCutType, List<WrappedPointCut>>> pointCutsCache = new ConcurrentHashMap<>();
+    private volatile int pointCutsVersion = 0;
+    private final ProxyFactory proxyFactory;
+    private final List<Class<?>> beansClasses = new ArrayList<>();
+    private volatile ExecutorService asyncExecutor;
+    private volatile AsyncAdviceDispatcher asyncAdviceDispatcher;
+    private volatile boolean closed;
 
     public ApplicationContext(@NotNull Class<?> applicationClass) {
+        this(applicationClass, true, false);
+    }
+
+    /**
+     * @param running whether the context was created by {@link SimpleApplication#run}, so closing it allows
+     *                the application to be run again
+     */
+    ApplicationContext(@NotNull Class<?> applicationClass, boolean initializeBeans, boolean running) {
         Application application = applicationClass.getAnnotation(Application.class);
         if (application == null) {
             throw new IllegalArgumentException("Application class %s does not contains @Application".formatted(applicationClass.getName()));
         }
 
+        this.applicationClass = applicationClass;
+        this.running = running;
         addBean(ApplicationContext.class, this);
 
         String rawPackageName = application.packageName();
@@ -68,13 +103,16 @@ public final class ApplicationContext {
         }
 
         properties = new ApplicationProperties(applicationClass);
-        APPLICATION_CLASS_TO_CONTEXT.put(applicationClass, this);
+        aopEngine = AopEngine.of(properties);
+        aopEnabled = properties.getProperty("simplebeans.aop.enabled", "true").equalsIgnoreCase("true");
+        proxyFactory = new ProxyFactory(this);
+        if (initializeBeans) {
+            APPLICATION_CLASS_TO_CONTEXT.put(applicationClass, this);
+        }
 
         Set<File> classPath = GeneralUtils.getClassPathFiles();
         bcelClassScanner = BcelClassScanner.of(classPath, classPath);
 
-        List<Class<?>> beansClasses = new ArrayList<>();
-
         Optional<Class<?>> optionalProxyClass = bcelClassScanner.getImplementationsOf(ProxyClass.class, false).stream().findAny();
         if (optionalProxyClass.isPresent()) {
             throw new IllegalStateException("Class %s implements ProxyClass that is forbidden".formatted(optionalProxyClass.get()));
@@ -130,6 +168,26 @@ public final class ApplicationContext {
                             .forEach(dependencyTree::add);
                 });
 
+        // TODO: move this logic into proxy package
+        // Point cuts are registered before beans are initialized, so proxy classes know which methods are advised
+        beansClasses.stream()
+                .filter(beanClass -> beanClass.isAnnotationPresent(Aspect.class))
+                .forEach(aspectClass -> pointCuts.addAll(wrapAspectAdvices(aspectClass)));
+        pointCutIndex = PointCutIndex.of(pointCuts);
+        checkBindings(pointCuts);
+
+        if (!initializeBeans) {
+            return;
+        }
+
+        if (aopEngine == AopEngine.WEAVING) {
+            if (aopEnabled) {
+                Weaver.register(this);
+            }
+        } else if (properties.getProperty("simplebeans.aop.pregenerate", "false").equalsIgnoreCase("true")) {
+            proxyFactory.generateProxyClasses(beansClasses);
+        }
+
         dependencyTree.initializeBeans();
 
         beansClasses.stream().map(Class::getDeclaredFields)
@@ -188,24 +246,17 @@ public final class ApplicationContext {
                     }
                 });
 
-        // TODO: move this logic into proxy package
-        beansClasses.stream()
-                .filter(beanClass -> beanClass.isAnnotationPresent(Aspect.class))
-                .map(Class::getDeclaredMethods)
-                .flatMap(Arrays::stream)
-                .forEach(advice -> {
-                    if (advice.isAnnotationPresent(Before.class)) {
-                        if (advice.getReturnType() != Void.TYPE) {
-                            throw new IllegalStateException("@Before point cut %s must return void".formatted(advice));
-                        }
-
-                        registerAspectAdvice(advice, Before.class, Before::value, PointCutType.BEFORE);
-                    }
+        pointCuts.forEach(wrappedPointCut -> wrappedPointCut.bind(getBean(wrappedPointCut.getMethod().getDeclaringClass())));
+        onPointCutsStateChanged();
+    }
 
-                    if (advice.isAnnotationPresent(After.class)) {
-                        registerAspectAdvice(advice, After.class, After::value, PointCutType.AFTER);
-                    }
-                });
+    /**
+     * Scans beans and aspects of the application without initializing any of them. Such context has no beans,
+     * it is used to generate proxy classes at build time
+     */
+    @NotNull
+    public static ApplicationContext scan(@NotNull Class<?> applicationClass) {
+        return new ApplicationContext(applicationClass, false, false);
     }
 
     @NotNull
@@ -213,26 +264,50 @@ public final class ApplicationContext {
         return APPLICATION_CLASS_TO_CONTEXT.get(applicationClass);
     }
 
+    /**
+     * Releases proxy classes of this context and, if it was created by {@link SimpleApplication#run}, allows
+     * the application to be run again. Beans and proxies that were already created keep working, except for
+     * {@link ru.leonidm.simplebeans.aspects.async.Async} methods and {@link After#async()} advices, since executors
+     * of the context are shut down
+     */
+    @Override
+    public void close() {
+        if (aopEngine == AopEngine.WEAVING) {
+            Weaver.unregister(this);
+        }
+
+        proxyFactory.close();
+        pointCutsCache = new ConcurrentHashMap<>();
+
+        synchronized (this) {
+            closed = true;
+
+            if (asyncExecutor != null) {
+                asyncExecutor.shutdown();
+            }
+
+            if (asyncAdviceDispatcher != null) {
+                asyncAdviceDispatcher.close();
+            }
+        }
+
+        APPLICATION_CLASS_TO_CONTEXT.remove(applicationClass, this);
+        if (running) {
+            SimpleApplication.onClose(applicationClass);
+        }
+    }
+
     private boolean contains(@NotNull Class<?> clazz) {
-        return clazz.getName().startsWith(packageName) || clazz.getName().startsWith(BASE_PACKAGE_NAME);
+        return contains(clazz.getName());
+    }
+
+    private boolean contains(@NotNull String className) {
+        return className.startsWith(packageName) || className.startsWith(BASE_PACKAGE_NAME);
     }
 
     @NotNull
     private Object getNonProxiedBean(@NotNull Class<?> beanClass) {
-        Object bean = getBean(beanClass);
-
-        if (bean instanceof ProxyClass proxyClass) {
-            try {
-                Field invocationHandlerField = proxyClass.getClass().getDeclaredField("invocationHandler");
-                invocationHandlerField.setAccessible(true);
-                AspectInvocationHandler invocationHandler = (AspectInvocationHandler) invocationHandlerField.get(bean);
-                return invocationHandler.getRealObject();
-            } catch (NoSuchFieldException | IllegalAccessException e) {
-                throw new IllegalStateException(e);
-            }
-        }
-
-        return bean;
+        return AdvancedProxy.getRealObject(getBean(beanClass));
     }
 
     @NotNull
@@ -240,33 +315,308 @@ public final class ApplicationContext {
         return bcelClassScanner;
     }
 
+    @NotNull
+    public ProxyFactory getProxyFactory() {
+        return proxyFactory;
+    }
+
     @NotNull
     public ApplicationProperties getProperties() {
         return properties;
     }
 
+    @NotNull
+    public AopEngine getAopEngine() {
+        return aopEngine;
+    }
+
+    /**
+     * @return value of {@code simplebeans.aop.enabled} property, it is read once when the context is created
+     */
+    public boolean isAopEnabled() {
+        return aopEnabled;
+    }
+
+    /**
+     * @return executor of {@link ru.leonidm.simplebeans.aspects.async.Async} methods, it is created on the first call
+     * and is shut down when the context is closed
+     * @throws IllegalStateException if the context is closed
+     */
+    @NotNull
+    public ExecutorService getAsyncExecutor() {
+        checkNotClosed();
+
+        ExecutorService asyncExecutor = this.asyncExecutor;
+        if (asyncExecutor != null) {
+            return asyncExecutor;
+        }
+
+        synchronized (this) {
+            checkNotClosed();
+            if (this.asyncExecutor == null) {
+                this.asyncExecutor = AsyncExecutors.create(properties);
+            }
+
+            return this.asyncExecutor;
+        }
+    }
+
+    /**
+     * @return dispatcher of {@link After#async()} advices, it is created on the first call and is closed when
+     * the context is closed
+     * @throws IllegalStateException if the context is closed
+     */
+    @NotNull
+    public AsyncAdviceDispatcher getAsyncAdviceDispatcher() {
+        checkNotClosed();
+
+        AsyncAdviceDispatcher asyncAdviceDispatcher = this.asyncAdviceDispatcher;
+        if (asyncAdviceDispatcher != null) {
+            return asyncAdviceDispatcher;
+        }
+
+        synchronized (this) {
+            checkNotClosed();
+            if (this.asyncAdviceDispatcher == null) {
+                this.asyncAdviceDispatcher = AsyncAdviceDispatcher.create(properties);
+            }
+
+            return this.asyncAdviceDispatcher;
+        }
+    }
+
+    /**
+     * Executors of the closed context are shut down and are never created again
+     */
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Context of %s is closed".formatted(applicationClass.getName()));
+        }
+    }
+
     @NotNull
     @UnmodifiableView
     public Collection<Object> getBeans() {
         return Collections.unmodifiableCollection(beanClassToInstance.values());
     }
 
-    private <A extends Annotation> void registerAspectAdvice(@NotNull Method pointCut, @NotNull Class<A> annotationClass,
-                                                             @NotNull Function<A, String> valueGetter, @NotNull PointCutType pointCutType) {
+    @NotNull
+    @UnmodifiableView
+    public List<Class<?>> getBeansClasses() {
+        return Collections.unmodifiableList(beansClasses);
+    }
+
+    /**
+     * Registers advices of given aspect at runtime. Existing proxies run them since the next call of the advised
+     * method, including methods that had no advices when their proxy classes were generated
+     *
+     * @throws IllegalStateException if typed bindings of some advice do not fit methods of beans it advises
+     */
+    public synchronized void registerAspect(@NotNull Object aspect) {
+        Class<?> aspectClass = aspect.getClass();
+        if (!aspectClass.isAnnotationPresent(Aspect.class)) {
+            throw new IllegalArgumentException("%s is not @Aspect class".formatted(aspectClass.getName()));
+        }
+
+        if (pointCuts.stream().anyMatch(wrappedPointCut -> wrappedPointCut.getAspectInstance() == aspect)) {
+            return;
+        }
+
+        // Point cuts are added only after all advices of the aspect are wrapped and checked, so the failed aspect
+        // leaves nothing behind and can be registered again
+        List<WrappedPointCut> aspectPointCuts = wrapAspectAdvices(aspectClass);
+        checkBindings(aspectPointCuts);
+
+        aspectPointCuts.forEach(wrappedPointCut -> wrappedPointCut.bind(aspect));
+        pointCuts.addAll(aspectPointCuts);
+        onPointCutsChanged();
+    }
+
+    /**
+     * Removes advices of given aspect, existing proxies stop running them since the next call of the advised method
+     */
+    public synchronized void unregisterAspect(@NotNull Object aspect) {
+        if (pointCuts.removeIf(wrappedPointCut -> wrappedPointCut.getAspectInstance() == aspect)) {
+            onPointCutsChanged();
+        }
+    }
+
+    /**
+     * Enables or disables all advices of given aspect class at runtime, see {@link #setPointCutEnabled}
+     *
+     * @return whether any advice was changed
+     */
+    public synchronized boolean setAspectEnabled(@NotNull Class<?> aspectClass, boolean enabled) {
+        return setPointCutsEnabled(wrappedPointCut -> aspectClass.isAssignableFrom(wrappedPointCut.getMethod().getDeclaringClass()), enabled);
+    }
+
+    /**
+     * Enables or disables given advice at runtime. Disabled advices stay in advice chains and are skipped on calls,
+     * so proxy classes are not generated again. Proxy methods whose advices are all disabled call the real object
+     * directly, and they run their advices again since the next call after any of them is enabled
+     *
+     * @return whether the advice was changed
+     */
+    public synchronized boolean setPointCutEnabled(@NotNull Method advice, boolean enabled) {
+        return setPointCutsEnabled(wrappedPointCut -> wrappedPointCut.getMethod().equals(advice), enabled);
+    }
+
+    private boolean setPointCutsEnabled(@NotNull Predicate<WrappedPointCut> filter, boolean enabled) {
+        boolean changed = false;
+        for (WrappedPointCut wrappedPointCut : pointCuts) {
+            if (filter.test(wrappedPointCut) && wrappedPointCut.isEnabled() != enabled) {
+                wrappedPointCut.setEnabled(enabled);
+                changed = true;
+            }
+        }
+
+        if (changed) {
+            onPointCutsStateChanged();
+        }
+
+        return changed;
+    }
+
+    /**
+     * Version of the registered point cuts, it is changed every time aspects are registered or removed at runtime,
+     * so advice chains resolved for the previous version must be resolved again
+     */
+    public int getPointCutsVersion() {
+        return pointCutsVersion;
+    }
+
+    private void onPointCutsChanged() {
+        pointCutIndex = PointCutIndex.of(pointCuts);
+        pointCutsCache = new ConcurrentHashMap<>();
+        pointCutsVersion++;
+        proxyFactory.invalidate();
+        proxyFactory.relink();
+
+        if (aopEngine == AopEngine.WEAVING && Weaver.isRegistered(this)) {
+            Weaver.retransform(this);
+        }
+    }
+
+    /**
+     * Checks typed bindings of given point cuts against methods of beans they advise, so wrong bindings fail when
+     * aspects are registered instead of on the first call. Methods of proxied return values are not known here,
+     * they are checked when their advice chains are resolved
+     */
+    private void checkBindings(@NotNull Collection<WrappedPointCut> wrappedPointCuts) {
+        PointCutIndex index = PointCutIndex.of(wrappedPointCuts);
+        beansClasses.stream()
+                .flatMap(beanClass -> Stream.concat(Arrays.stream(beanClass.getMethods()), Arrays.stream(beanClass.getDeclaredMethods())))
+                .filter(method -> !Modifier.isStatic(method.getModifiers()))
+                .distinct()
+                .forEach(method -> index.find(method).stream()
+                        .filter(wrappedPointCut -> wrappedPointCut.canAdvise(method))
+                        .forEach(wrappedPointCut -> wrappedPointCut.checkBindings(method)));
+    }
+
+    /**
+     * Point cuts are the same, but some of them were bound, enabled or disabled
+     */
+    private void onPointCutsStateChanged() {
+        proxyFactory.relink();
+        if (aopEngine == AopEngine.WEAVING) {
+            Weaver.invalidate();
+        }
+    }
+
+    /**
+     * @return point cuts of all advices of given aspect, they are not registered yet
+     */
+    @NotNull
+    private List<WrappedPointCut> wrapAspectAdvices(@NotNull Class<?> aspectClass) {
+        List<WrappedPointCut> registered = new ArrayList<>();
+        for (Method advice : aspectClass.getDeclaredMethods()) {
+            if (advice.isAnnotationPresent(Before.class)) {
+                if (advice.getReturnType() != Void.TYPE) {
+                    throw new IllegalStateException("@Before point cut %s must return void".formatted(advice));
+                }
+
+                WrappedPointCut wrappedPointCut = wrapAspectAdvice(advice, Before.class, Before::value, Before::annotatedWith, PointCutType.BEFORE);
+                if (wrappedPointCut != null) {
+                    wrappedPointCut.sample(advice.getAnnotation(Before.class).sample());
+                    registered.add(wrappedPointCut);
+                }
+            }
+
+            if (advice.isAnnotationPresent(After.class)) {
+                WrappedPointCut wrappedPointCut = wrapAspectAdvice(advice, After.class, After::value, After::annotatedWith, PointCutType.AFTER);
+                if (wrappedPointCut != null) {
+                    After after = advice.getAnnotation(After.class);
+                    wrappedPointCut.sample(after.sample());
+                    if (after.async()) {
+                        wrappedPointCut.dispatchTo(this::getAsyncAdviceDispatcher);
+                    }
+
+                    registered.add(wrappedPointCut);
+                }
+            }
+
+            if (advice.isAnnotationPresent(Around.class)) {
+                if (advice.getReturnType() == Void.TYPE) {
+                    throw new IllegalStateException("@Around point cut %s must return result of the method".formatted(advice));
+                }
+
+                WrappedPointCut wrappedPointCut = wrapAspectAdvice(advice, Around.class, Around::value, Around::annotatedWith, PointCutType.AROUND);
+                if (wrappedPointCut != null) {
+                    registered.add(wrappedPointCut);
+                }
+            }
+        }
+
+        return registered;
+    }
+
+    /**
+     * @return point cut of the advice or null if its mask is read from application property that is not set
+     */
+    @Nullable
+    private <A extends Annotation> WrappedPointCut wrapAspectAdvice(@NotNull Method pointCut, @NotNull Class<A> annotationClass,
+                                                                    @NotNull Function<A, String> valueGetter,
+                                                                    @NotNull Function<A, Class<? extends Annotation>> annotatedWithGetter,
+                                                                    @NotNull PointCutType pointCutType) {
         Class<?> aspectClass = pointCut.getDeclaringClass();
         if (!aspectClass.isAnnotationPresent(Aspect.class)) {
             throw new IllegalStateException("@%s point cut %s is used not in @Aspect class".formatted(annotationClass.getSimpleName(), pointCut));
         }
 
         A annotation = pointCut.getAnnotation(annotationClass);
+        String mask = valueGetter.apply(annotation);
+        Class<? extends Annotation> annotatedWith = annotatedWithGetter.apply(annotation);
+        if (mask.isEmpty() == (annotatedWith == Annotation.class)) {
+            throw new IllegalStateException("@%s point cut %s must have either mask or annotation".formatted(annotationClass.getSimpleName(), pointCut));
+        }
+
+        Matcher propertyMatcher = WrappedPointCut.COMPILED_PROPERTY_MASK_PATTERN.matcher(mask);
+        if (propertyMatcher.matches()) {
+            mask = properties.getProperty(propertyMatcher.group(1));
+            if (mask == null) {
+                return null;
+            }
+        }
 
         WrappedPointCut wrappedPointCut;
         try {
-            wrappedPointCut = WrappedPointCut.of(getBean(aspectClass), pointCut, valueGetter.apply(annotation), pointCutType);
+            if (annotatedWith != Annotation.class) {
+                wrappedPointCut = WrappedPointCut.of(pointCut, AnnotatedMethods.scan(bcelClassScanner, annotatedWith, this::contains), pointCutType);
+            } else {
+                wrappedPointCut = WrappedPointCut.of(pointCut, mask, pointCutType);
+            }
         } catch (Exception e) {
             throw new IllegalStateException("Got exception on loading pointcut %s".formatted(pointCut), e);
         }
-        pointCuts.add(wrappedPointCut);
+
+        // Woven code cannot skip the method body or catch its exceptions, so around advices and advices of thrown
+        // exceptions are allowed only if they advise nothing
+        if ((pointCutType == PointCutType.AROUND || wrappedPointCut.isThrowing()) && aopEngine == AopEngine.WEAVING
+                && (wrappedPointCut.getAnnotatedMethods() == null || !wrappedPointCut.getAnnotatedMethods().getMethodNames().isEmpty())) {
+            throw new IllegalStateException("@%s point cut %s is not supported by weaving engine".formatted(annotationClass.getSimpleName(), pointCut));
+        }
+
+        return wrappedPointCut;
     }
 
     public boolean hasBean(@NotNull Class<?> beanClass) {
@@ -301,15 +651,27 @@ public final class ApplicationContext {
     }
 
 
+    public boolean isAdvised(@NotNull Method method) {
+        return !pointCutIndex.find(method).isEmpty();
+    }
+
+    /**
+     * Same as {@link #isAdvised(Method)}, but for methods of classes that may be not loaded yet
+     */
+    public boolean isAdvised(@NotNull String className, @NotNull String methodName, @NotNull String @NotNull [] parameterTypes) {
+        return !pointCutIndex.find(className, methodName, parameterTypes).isEmpty();
+    }
+
     @NotNull
     @Unmodifiable
     public List<WrappedPointCut> getPointCuts(@NotNull Method method, @NotNull PointCutType pointCutType) {
         return pointCutsCache.computeIfAbsent(method, k -> {
             EnumMap<PointCutType, List<WrappedPointCut>> cache = new EnumMap<>(PointCutType.class);
 
-            List<WrappedPointCut> fitMask = pointCuts.stream()
-                    .filter(wrappedPointCut -> wrappedPointCut.doesFitMask(method))
+            List<WrappedPointCut> fitMask = pointCutIndex.find(method).stream()
+                    .filter(wrappedPointCut -> wrappedPointCut.canAdvise(method))
                     .collect(Collectors.toList());
+            fitMask.forEach(wrappedPointCut -> wrappedPointCut.checkBindings(method));
 
             for (PointCutType pointCutType1 : PointCutType.values()) {
                 List<WrappedPointCut> list = fitMask.stream()
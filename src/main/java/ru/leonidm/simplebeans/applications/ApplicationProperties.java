@@ -17,7 +17,7 @@ public class ApplicationProperties {
         Objects.requireNonNull(application);
 
         for (String property : application.properties()) {
-            String[] split = property.split("[^\\\\]=");
+            String[] split = property.split("(?<!\\\\)=");
             if (split.length != 2) {
                 throw new IllegalStateException("Cannot handle property \"%s\"".formatted(property));
             }
@@ -19,6 +19,10 @@ public final class SimpleApplication {
             throw new IllegalArgumentException("Applications %s is already running".formatted(applicationClass.getName()));
         }
 
-        return new ApplicationContext(applicationClass);
+        return new ApplicationContext(applicationClass, true, true);
+    }
+
+    static void onClose(@NotNull Class<?> applicationClass) {
+        RUNNING_APPLICATIONS.remove(applicationClass);
     }
 }
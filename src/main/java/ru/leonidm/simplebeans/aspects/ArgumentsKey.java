@@ -0,0 +1,66 @@
+package ru.leonidm.simplebeans.aspects;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Key of arguments of one method call, arguments are compared with {@link Object#equals(Object)} and arrays are
+ * compared by their elements. Calls without arguments and with one argument that is not an array are keyed without
+ * allocating
+ */
+public final class ArgumentsKey {
+
+    private static final Object NO_ARGS = new Object();
+    private static final Object NULL = new Object();
+
+    private final Object[] args;
+    private final int hashCode;
+
+    private ArgumentsKey(@Nullable Object @NotNull [] args) {
+        this.args = args;
+        this.hashCode = Arrays.deepHashCode(args);
+    }
+
+    /**
+     * @return key that is equal to keys of equal arguments, it is not always {@link ArgumentsKey}
+     */
+    @NotNull
+    public static Object of(@Nullable Object @NotNull [] args) {
+        if (args.length == 0) {
+            return NO_ARGS;
+        }
+
+        if (args.length == 1) {
+            Object arg = args[0];
+            if (arg == null) {
+                return NULL;
+            }
+
+            if (!arg.getClass().isArray()) {
+                return arg;
+            }
+        }
+
+        return new ArgumentsKey(args);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (!(o instanceof ArgumentsKey argumentsKey)) {
+            return false;
+        }
+
+        return hashCode == argumentsKey.hashCode && Arrays.deepEquals(args, argumentsKey.args);
+    }
+
+    @Override
+    public int hashCode() {
+        return hashCode;
+    }
+}
@@ -0,0 +1,20 @@
+package ru.leonidm.simplebeans.aspects.async;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Annotated method is called on the executor of the context, and the caller gets the future of its result
+ * immediately. Method must return {@code void}, {@link java.util.concurrent.Future},
+ * {@link java.util.concurrent.CompletionStage} or {@link java.util.concurrent.CompletableFuture}, future returned
+ * by the method itself is completed with result of its own future
+ *
+ * @see AsyncExecutors
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Async {
+
+}
@@ -0,0 +1,93 @@
+package ru.leonidm.simplebeans.aspects.async;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.beans.Autowired;
+import ru.leonidm.simplebeans.logger.LoggerAdapter;
+import ru.leonidm.simplebeans.proxy.aspects.Around;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.JoinPoint;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+/**
+ * Built-in aspect that calls methods annotated with {@link Async} on {@link ApplicationContext#getAsyncExecutor()}
+ */
+@Aspect
+public class AsyncAspect {
+
+    /**
+     * Return types of {@link Async} methods are checked once, methods are mapped to whether they return void
+     */
+    private final Map<Method, Boolean> checkedMethods = new ConcurrentHashMap<>();
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Around(annotatedWith = Async.class)
+    public Object async(JoinPoint joinPoint) {
+        Method method = joinPoint.getMethod();
+        boolean isVoid = checkedMethods.computeIfAbsent(method, AsyncAspect::checkReturnType);
+
+        JoinPoint detached = joinPoint.detach();
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        context.getAsyncExecutor().execute(() -> {
+            try {
+                complete(future, detached.proceed());
+            } catch (Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+
+        if (isVoid) {
+            future.whenComplete((result, t) -> {
+                if (t != null) {
+                    LoggerAdapter.get().warn("Async method {} has thrown {}", method, t);
+                }
+            });
+            return null;
+        }
+
+        return future;
+    }
+
+    /**
+     * @return whether given method returns void
+     * @throws IllegalStateException if its result cannot be completed asynchronously
+     */
+    private static boolean checkReturnType(@NotNull Method method) {
+        Class<?> returnType = method.getReturnType();
+        if (returnType != Void.TYPE && !returnType.isAssignableFrom(CompletableFuture.class)) {
+            throw new IllegalStateException("@Async method %s must return void, Future, CompletionStage or CompletableFuture".formatted(method));
+        }
+
+        return returnType == Void.TYPE;
+    }
+
+    private static void complete(@NotNull CompletableFuture<Object> future, @Nullable Object result) throws InterruptedException {
+        if (result instanceof CompletionStage<?> stage) {
+            stage.whenComplete((value, t) -> {
+                if (t != null) {
+                    future.completeExceptionally(t);
+                } else {
+                    future.complete(value);
+                }
+            });
+        } else if (result instanceof Future<?> resultFuture) {
+            try {
+                future.complete(resultFuture.get());
+            } catch (ExecutionException e) {
+                future.completeExceptionally(e.getCause());
+            }
+        } else {
+            future.complete(result);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package ru.leonidm.simplebeans.aspects.async;
+
+import org.jetbrains.annotations.NotNull;
+import ru.leonidm.simplebeans.applications.ApplicationProperties;
+import ru.leonidm.simplebeans.logger.LoggerAdapter;
+
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Creates executor of {@link Async} methods selected by {@code simplebeans.async.executor} property:
+ * <ul>
+ *     <li>{@code virtual} — new virtual thread per call, if virtual threads are not available, it is the same as {@code cached}</li>
+ *     <li>{@code cached} — pool of platform threads that grows on demand</li>
+ *     <li>{@code fixed} — pool of {@code simplebeans.async.threads} platform threads</li>
+ * </ul>
+ */
+public final class AsyncExecutors {
+
+    private AsyncExecutors() {
+
+    }
+
+    @NotNull
+    public static ExecutorService create(@NotNull ApplicationProperties properties) {
+        String executor = properties.getProperty("simplebeans.async.executor", "virtual");
+
+        return switch (executor.toLowerCase(Locale.ROOT)) {
+            case "virtual" -> newVirtualThreadExecutor();
+            case "cached" -> Executors.newCachedThreadPool(newThreadFactory());
+            case "fixed" -> {
+                String threads = properties.getProperty("simplebeans.async.threads",
+                        String.valueOf(Runtime.getRuntime().availableProcessors()));
+                try {
+                    yield Executors.newFixedThreadPool(Integer.parseInt(threads), newThreadFactory());
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalStateException("Bad number of async threads '%s'".formatted(threads), e);
+                }
+            }
+            default -> throw new IllegalStateException("Unknown async executor '%s'".formatted(executor));
+        };
+    }
+
+    /**
+     * Virtual threads are looked up reflectively, because the library is compiled for Java 17
+     */
+    @NotNull
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            LoggerAdapter.get().debug("Virtual threads are not available, platform threads are used for async methods");
+            return Executors.newCachedThreadPool(newThreadFactory());
+        }
+    }
+
+    @NotNull
+    private static ThreadFactory newThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "simplebeans-async-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
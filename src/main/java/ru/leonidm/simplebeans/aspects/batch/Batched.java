@@ -0,0 +1,35 @@
+package ru.leonidm.simplebeans.aspects.batch;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Concurrent calls of the annotated method with one argument are collected into a batch and served by one call
+ * of the bulk method of the same bean. Bulk method takes {@link java.util.List} of arguments and returns either
+ * {@link java.util.List} of results in the same order or {@link java.util.Map} of arguments to results
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Batched {
+
+    /**
+     * Name of the bulk method
+     */
+    String value();
+
+    /**
+     * Batch is dispatched as soon as it has this number of calls
+     */
+    int maxSize() default 64;
+
+    /**
+     * Batch is dispatched after this time since its first call even if it is not full
+     */
+    long maxDelay() default 10;
+
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+}
@@ -0,0 +1,46 @@
+package ru.leonidm.simplebeans.aspects.batch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.leonidm.simplebeans.proxy.aspects.Around;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.JoinPoint;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Built-in aspect that serves calls of methods annotated with {@link Batched} by their bulk methods, the annotated
+ * method itself is not called
+ */
+@Aspect
+public class BatchedAspect {
+
+    private final Map<Method, Batcher> batchers = new ConcurrentHashMap<>();
+
+    @Around(annotatedWith = Batched.class)
+    public Object batch(JoinPoint joinPoint) throws Throwable {
+        Batcher batcher = getBatcher(joinPoint.getMethod());
+        if (batcher == null) {
+            return joinPoint.proceed();
+        }
+
+        return batcher.call(joinPoint.getTarget(), joinPoint.getArgs()[0]);
+    }
+
+    @Nullable
+    private Batcher getBatcher(@NotNull Method method) {
+        Batcher batcher = batchers.get(method);
+        if (batcher != null) {
+            return batcher;
+        }
+
+        Batched batched = method.getAnnotation(Batched.class);
+        if (batched == null) {
+            return null;
+        }
+
+        return batchers.computeIfAbsent(method, k -> Batcher.of(method, batched));
+    }
+}
@@ -0,0 +1,155 @@
+package ru.leonidm.simplebeans.aspects.batch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Batches of one {@link Batched} method. The first call of the batch becomes its leader: it waits until the batch is
+ * full or its delay has passed, then calls the bulk method for all calls of the batch, so no additional threads
+ * are used
+ */
+final class Batcher {
+
+    private final Method method;
+    private final Method bulkMethod;
+    private final boolean returnsMap;
+    private final int maxSize;
+    private final long maxDelayNanos;
+    /**
+     * Open batches by real objects of beans, guarded by this
+     */
+    private final Map<Object, Batch> openBatches = new IdentityHashMap<>();
+
+    private Batcher(@NotNull Method method, @NotNull Method bulkMethod, int maxSize, long maxDelayNanos) {
+        this.method = method;
+        this.bulkMethod = bulkMethod;
+        this.returnsMap = Map.class.isAssignableFrom(bulkMethod.getReturnType());
+        this.maxSize = maxSize;
+        this.maxDelayNanos = maxDelayNanos;
+    }
+
+    @NotNull
+    static Batcher of(@NotNull Method method, @NotNull Batched batched) {
+        if (method.getParameterCount() != 1) {
+            throw new IllegalStateException("@Batched method %s must have one argument".formatted(method));
+        }
+
+        if (batched.maxSize() <= 0) {
+            throw new IllegalStateException("@Batched method %s must have positive max size".formatted(method));
+        }
+
+        Method bulkMethod = null;
+        for (Method candidate : method.getDeclaringClass().getMethods()) {
+            if (candidate.getName().equals(batched.value()) && candidate.getParameterCount() == 1
+                    && candidate.getParameterTypes()[0].isAssignableFrom(List.class)
+                    && (List.class.isAssignableFrom(candidate.getReturnType()) || Map.class.isAssignableFrom(candidate.getReturnType()))) {
+                bulkMethod = candidate;
+                break;
+            }
+        }
+
+        if (bulkMethod == null) {
+            throw new IllegalStateException("@Batched method %s has no public bulk method %s(List) that returns List or Map"
+                    .formatted(method, batched.value()));
+        }
+
+        return new Batcher(method, bulkMethod, batched.maxSize(), batched.unit().toNanos(batched.maxDelay()));
+    }
+
+    @Nullable
+    Object call(@NotNull Object instance, @Nullable Object argument) throws Throwable {
+        Batch batch;
+        int index;
+        boolean leader = false;
+        synchronized (this) {
+            batch = openBatches.get(instance);
+            if (batch == null) {
+                batch = new Batch();
+                openBatches.put(instance, batch);
+                leader = true;
+            }
+
+            index = batch.arguments.size();
+            batch.arguments.add(argument);
+            if (batch.arguments.size() >= maxSize) {
+                openBatches.remove(instance);
+                batch.full.countDown();
+            }
+        }
+
+        if (leader) {
+            // Leader dispatches the batch even if it is interrupted, otherwise other calls would wait forever
+            boolean interrupted = false;
+            try {
+                batch.full.await(maxDelayNanos, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+
+            synchronized (this) {
+                openBatches.remove(instance, batch);
+            }
+
+            dispatch(instance, batch);
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        } else {
+            batch.done.await();
+        }
+
+        if (batch.error != null) {
+            throw batch.error;
+        }
+
+        return returnsMap ? batch.resultMap.get(argument) : batch.resultList.get(index);
+    }
+
+    private void dispatch(@NotNull Object instance, @NotNull Batch batch) {
+        try {
+            Object result = bulkMethod.invoke(instance, Collections.unmodifiableList(batch.arguments));
+            if (result == null) {
+                throw new IllegalStateException("Bulk method %s returned null".formatted(bulkMethod));
+            }
+
+            if (returnsMap) {
+                batch.resultMap = (Map<?, ?>) result;
+            } else {
+                List<?> resultList = (List<?>) result;
+                if (resultList.size() != batch.arguments.size()) {
+                    throw new IllegalStateException("Bulk method %s returned %d results for %d arguments of %s"
+                            .formatted(bulkMethod, resultList.size(), batch.arguments.size(), method));
+                }
+
+                batch.resultList = resultList;
+            }
+        } catch (InvocationTargetException e) {
+            batch.error = e.getCause();
+        } catch (Throwable t) {
+            batch.error = t;
+        } finally {
+            batch.done.countDown();
+        }
+    }
+
+    private static final class Batch {
+
+        private final List<Object> arguments = new ArrayList<>();
+        private final CountDownLatch full = new CountDownLatch(1);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private List<?> resultList;
+        private Map<?, ?> resultMap;
+        private Throwable error;
+
+    }
+}
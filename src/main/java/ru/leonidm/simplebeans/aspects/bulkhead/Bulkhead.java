@@ -0,0 +1,39 @@
+package ru.leonidm.simplebeans.aspects.bulkhead;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Limits number of concurrent calls of the annotated method, or of all methods of the same group. Calls over
+ * the limit wait for a free slot up to {@link #maxWait()}, then they are rejected with {@link BulkheadFullException}
+ *
+ * @see BulkheadAspect#getStats
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Bulkhead {
+
+    /**
+     * Name of the group of methods that share the limit, by default it is {@code ClassName#methodName}. All methods
+     * of the group must have the same limits
+     */
+    String value() default "";
+
+    int maxConcurrent();
+
+    /**
+     * Time a call waits for a free slot, zero means that calls over the limit are rejected immediately
+     */
+    long maxWait() default 0;
+
+    /**
+     * Maximum number of calls that wait for a free slot at the same time, others are rejected immediately
+     */
+    int maxWaiting() default Integer.MAX_VALUE;
+
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+}
@@ -0,0 +1,77 @@
+package ru.leonidm.simplebeans.aspects.bulkhead;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+import ru.leonidm.simplebeans.proxy.aspects.Around;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.JoinPoint;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Built-in aspect that limits concurrent calls of methods annotated with {@link Bulkhead}
+ */
+@Aspect
+public class BulkheadAspect {
+
+    private final Map<Method, BulkheadLimiter> methodToLimiter = new ConcurrentHashMap<>();
+    private final Map<String, BulkheadLimiter> limiters = new ConcurrentHashMap<>();
+
+    @Around(annotatedWith = Bulkhead.class)
+    public Object limit(JoinPoint joinPoint) throws Throwable {
+        BulkheadLimiter limiter = getLimiter(joinPoint.getMethod());
+        if (limiter == null) {
+            return joinPoint.proceed();
+        }
+
+        limiter.acquire();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            limiter.release();
+        }
+    }
+
+    /**
+     * @return state of the bulkhead with given name or null if no method of it was called yet
+     */
+    @Nullable
+    public BulkheadStats getStats(@NotNull String name) {
+        BulkheadLimiter limiter = limiters.get(name);
+        return limiter != null ? limiter.getStats() : null;
+    }
+
+    @NotNull
+    @Unmodifiable
+    public Map<String, BulkheadStats> getStats() {
+        return limiters.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().getStats()));
+    }
+
+    @Nullable
+    private BulkheadLimiter getLimiter(@NotNull Method method) {
+        BulkheadLimiter limiter = methodToLimiter.get(method);
+        if (limiter != null) {
+            return limiter;
+        }
+
+        Bulkhead bulkhead = method.getAnnotation(Bulkhead.class);
+        if (bulkhead == null) {
+            return null;
+        }
+
+        String name = bulkhead.value().isEmpty() ? method.getDeclaringClass().getSimpleName() + '#' + method.getName() : bulkhead.value();
+        return methodToLimiter.computeIfAbsent(method, k -> {
+            BulkheadLimiter groupLimiter = limiters.computeIfAbsent(name, n -> new BulkheadLimiter(n, bulkhead));
+            if (!groupLimiter.hasSameLimits(bulkhead)) {
+                throw new IllegalStateException("Method %s has other limits than bulkhead %s".formatted(method, name));
+            }
+
+            return groupLimiter;
+        });
+    }
+}
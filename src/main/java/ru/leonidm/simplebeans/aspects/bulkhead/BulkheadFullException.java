@@ -0,0 +1,15 @@
+package ru.leonidm.simplebeans.aspects.bulkhead;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Thrown instead of calling the method when its {@link Bulkhead} has no free slots
+ */
+public class BulkheadFullException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public BulkheadFullException(@NotNull String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.leonidm.simplebeans.aspects.bulkhead;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Slots of one bulkhead. Free slot is taken with one CAS and calls never block while there are free slots,
+ * only calls over the limit park until a slot is released or their wait time has passed
+ */
+final class BulkheadLimiter {
+
+    private final String name;
+    private final Bulkhead bulkhead;
+    private final Semaphore slots;
+    private final long maxWaitNanos;
+    private final AtomicInteger waitingCount = new AtomicInteger();
+    private final LongAdder rejectedCount = new LongAdder();
+
+    BulkheadLimiter(@NotNull String name, @NotNull Bulkhead bulkhead) {
+        if (bulkhead.maxConcurrent() <= 0) {
+            throw new IllegalStateException("Bulkhead %s must allow at least one concurrent call".formatted(name));
+        }
+
+        this.name = name;
+        this.bulkhead = bulkhead;
+        this.slots = new Semaphore(bulkhead.maxConcurrent());
+        this.maxWaitNanos = bulkhead.unit().toNanos(bulkhead.maxWait());
+    }
+
+    /**
+     * @throws BulkheadFullException if there is no free slot
+     */
+    void acquire() throws InterruptedException {
+        if (slots.tryAcquire()) {
+            return;
+        }
+
+        if (maxWaitNanos > 0) {
+            if (waitingCount.incrementAndGet() <= bulkhead.maxWaiting()) {
+                try {
+                    if (slots.tryAcquire(maxWaitNanos, TimeUnit.NANOSECONDS)) {
+                        return;
+                    }
+                } finally {
+                    waitingCount.decrementAndGet();
+                }
+            } else {
+                waitingCount.decrementAndGet();
+            }
+        }
+
+        rejectedCount.increment();
+        throw new BulkheadFullException("Bulkhead %s is full".formatted(name));
+    }
+
+    void release() {
+        slots.release();
+    }
+
+    /**
+     * @return whether given annotation describes the same limits
+     */
+    boolean hasSameLimits(@NotNull Bulkhead bulkhead) {
+        return this.bulkhead.maxConcurrent() == bulkhead.maxConcurrent() && this.bulkhead.maxWaiting() == bulkhead.maxWaiting()
+                && maxWaitNanos == bulkhead.unit().toNanos(bulkhead.maxWait());
+    }
+
+    @NotNull
+    BulkheadStats getStats() {
+        return new BulkheadStats(name, bulkhead.maxConcurrent(), bulkhead.maxConcurrent() - slots.availablePermits(),
+                waitingCount.get(), rejectedCount.sum());
+    }
+}
@@ -0,0 +1,55 @@
+package ru.leonidm.simplebeans.aspects.bulkhead;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Snapshot of the state of one bulkhead
+ */
+public final class BulkheadStats {
+
+    private final String name;
+    private final int maxConcurrent;
+    private final int activeCount;
+    private final int waitingCount;
+    private final long rejectedCount;
+
+    BulkheadStats(@NotNull String name, int maxConcurrent, int activeCount, int waitingCount, long rejectedCount) {
+        this.name = name;
+        this.maxConcurrent = maxConcurrent;
+        this.activeCount = activeCount;
+        this.waitingCount = waitingCount;
+        this.rejectedCount = rejectedCount;
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    public int getMaxConcurrent() {
+        return maxConcurrent;
+    }
+
+    /**
+     * @return number of calls that are running now
+     */
+    public int getActiveCount() {
+        return activeCount;
+    }
+
+    /**
+     * @return number of calls that are waiting for a free slot now
+     */
+    public int getWaitingCount() {
+        return waitingCount;
+    }
+
+    public long getRejectedCount() {
+        return rejectedCount;
+    }
+
+    @Override
+    public String toString() {
+        return "%s{active=%d/%d, waiting=%d, rejected=%d}".formatted(name, activeCount, maxConcurrent, waitingCount, rejectedCount);
+    }
+}
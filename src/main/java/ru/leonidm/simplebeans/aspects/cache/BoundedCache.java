@@ -0,0 +1,131 @@
+package ru.leonidm.simplebeans.aspects.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache with TinyLFU admission. Reads are lock-free, writes are serialized. When the cache is full, new
+ * entry is cached only if it is used more often than the oldest cached one, according to {@link FrequencySketch},
+ * otherwise the oldest entry is moved to the end of the queue, so the next new entry is compared with another one
+ */
+final class BoundedCache {
+
+    /**
+     * Returned by {@link #get} if there is no actual cached value
+     */
+    static final Object ABSENT = new Object();
+
+    private final Map<Object, Node> nodes = new ConcurrentHashMap<>();
+    private final ArrayDeque<Node> queue = new ArrayDeque<>();
+    private final FrequencySketch sketch;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder rejectionCount = new LongAdder();
+
+    /**
+     * @param ttlNanos time after which values expire, zero means that they never expire
+     */
+    BoundedCache(int maxSize, long ttlNanos) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Max size must be positive, got %d".formatted(maxSize));
+        }
+
+        this.maxSize = maxSize;
+        this.ttlNanos = ttlNanos;
+        this.sketch = new FrequencySketch(maxSize);
+    }
+
+    /**
+     * @return cached value or {@link #ABSENT}
+     */
+    @Nullable
+    Object get(@NotNull Object key) {
+        sketch.increment(key);
+
+        Node node = nodes.get(key);
+        if (node == null || node.isExpired(ttlNanos)) {
+            missCount.increment();
+            return ABSENT;
+        }
+
+        hitCount.increment();
+        return node.value;
+    }
+
+    synchronized void put(@NotNull Object key, @Nullable Object value) {
+        Node previous = nodes.get(key);
+        if (previous != null) {
+            previous.update(value);
+            return;
+        }
+
+        while (nodes.size() >= maxSize) {
+            Node victim = queue.poll();
+            if (victim == null) {
+                break;
+            }
+
+            if (!victim.isExpired(ttlNanos) && sketch.frequency(key) <= sketch.frequency(victim.key)) {
+                queue.add(victim);
+                rejectionCount.increment();
+                return;
+            }
+
+            nodes.remove(victim.key, victim);
+            evictionCount.increment();
+        }
+
+        Node node = new Node(key, value);
+        nodes.put(key, node);
+        queue.add(node);
+    }
+
+    synchronized void clear() {
+        nodes.clear();
+        queue.clear();
+    }
+
+    /**
+     * @return number of nodes in the eviction queue, every cached key has exactly one
+     */
+    synchronized int queueSize() {
+        return queue.size();
+    }
+
+    @NotNull
+    CacheStats getStats() {
+        return new CacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(), rejectionCount.sum(), nodes.size());
+    }
+
+    private static final class Node {
+
+        private final Object key;
+        private volatile Object value;
+        private volatile long createdAt;
+
+        private Node(@NotNull Object key, @Nullable Object value) {
+            this.key = key;
+            update(value);
+        }
+
+        /**
+         * Replaces value of the node in place, so the key keeps its position in the queue
+         */
+        private void update(@Nullable Object value) {
+            this.createdAt = System.nanoTime();
+            this.value = value;
+        }
+
+        private boolean isExpired(long ttlNanos) {
+            return ttlNanos > 0 && System.nanoTime() - createdAt >= ttlNanos;
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package ru.leonidm.simplebeans.aspects.cache;
+
+/**
+ * Snapshot of statistics of the cache of one method
+ */
+public final class CacheStats {
+
+    private final long hitCount;
+    private final long missCount;
+    private final long evictionCount;
+    private final long rejectionCount;
+    private final int size;
+
+    CacheStats(long hitCount, long missCount, long evictionCount, long rejectionCount, int size) {
+        this.hitCount = hitCount;
+        this.missCount = missCount;
+        this.evictionCount = evictionCount;
+        this.rejectionCount = rejectionCount;
+        this.size = size;
+    }
+
+    public long getHitCount() {
+        return hitCount;
+    }
+
+    public long getMissCount() {
+        return missCount;
+    }
+
+    /**
+     * @return number of results that were removed to free space for new ones
+     */
+    public long getEvictionCount() {
+        return evictionCount;
+    }
+
+    /**
+     * @return number of results that were not cached, because they were used less often than cached ones
+     */
+    public long getRejectionCount() {
+        return rejectionCount;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    public double getHitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{hits=%d, misses=%d, evictions=%d, rejections=%d, size=%d}"
+                .formatted(hitCount, missCount, evictionCount, rejectionCount, size);
+    }
+}
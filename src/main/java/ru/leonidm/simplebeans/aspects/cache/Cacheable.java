@@ -0,0 +1,31 @@
+package ru.leonidm.simplebeans.aspects.cache;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Results of the annotated method are cached by its arguments. Arguments are compared with
+ * {@link Object#equals(Object)}, arrays are compared by their elements
+ *
+ * @see CacheableAspect#getStats
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cacheable {
+
+    /**
+     * Maximum number of cached results, rarely used ones are evicted first
+     */
+    int maxSize() default 1024;
+
+    /**
+     * Time after which cached result expires, zero means that results never expire
+     */
+    long ttl() default 0;
+
+    TimeUnit unit() default TimeUnit.MILLISECONDS;
+
+}
@@ -0,0 +1,82 @@
+package ru.leonidm.simplebeans.aspects.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+import ru.leonidm.simplebeans.aspects.ArgumentsKey;
+import ru.leonidm.simplebeans.proxy.aspects.Around;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.JoinPoint;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Built-in aspect that caches results of methods annotated with {@link Cacheable}, every method has its own cache
+ */
+@Aspect
+public class CacheableAspect {
+
+    private final Map<Method, BoundedCache> caches = new ConcurrentHashMap<>();
+
+    @Around(annotatedWith = Cacheable.class)
+    public Object cache(JoinPoint joinPoint) throws Throwable {
+        BoundedCache cache = getCache(joinPoint.getMethod());
+        if (cache == null) {
+            return joinPoint.proceed();
+        }
+
+        Object key = ArgumentsKey.of(joinPoint.getArgs());
+        Object result = cache.get(key);
+        if (result != BoundedCache.ABSENT) {
+            return result;
+        }
+
+        result = joinPoint.proceed();
+        cache.put(key, result);
+        return result;
+    }
+
+    /**
+     * @return statistics of the cache of given method or null if it was not called yet
+     */
+    @Nullable
+    public CacheStats getStats(@NotNull Method method) {
+        BoundedCache cache = caches.get(method);
+        return cache != null ? cache.getStats() : null;
+    }
+
+    @NotNull
+    @Unmodifiable
+    public Map<Method, CacheStats> getStats() {
+        return caches.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().getStats()));
+    }
+
+    /**
+     * Removes all cached results of given method
+     */
+    public void invalidate(@NotNull Method method) {
+        BoundedCache cache = caches.get(method);
+        if (cache != null) {
+            cache.clear();
+        }
+    }
+
+    @Nullable
+    private BoundedCache getCache(@NotNull Method method) {
+        BoundedCache cache = caches.get(method);
+        if (cache != null) {
+            return cache;
+        }
+
+        Cacheable cacheable = method.getAnnotation(Cacheable.class);
+        if (cacheable == null) {
+            return null;
+        }
+
+        return caches.computeIfAbsent(method, k -> new BoundedCache(cacheable.maxSize(), cacheable.unit().toNanos(cacheable.ttl())));
+    }
+}
@@ -0,0 +1,82 @@
+package ru.leonidm.simplebeans.aspects.cache;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Count-min sketch of 4-bit counters that estimates how often keys were used. Counters are halved after
+ * the number of increments reaches ten times the size of the cache, so old popularity fades. Increments are
+ * not synchronized, lost ones only make the estimate a bit lower
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777777777777777L;
+    private static final int MAX_FREQUENCY = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    FrequencySketch(int maxSize) {
+        int tableSize = Integer.highestOneBit(Math.max(maxSize, 16) - 1) << 1;
+        table = new long[tableSize];
+        tableMask = tableSize - 1;
+        sampleSize = 10 * Math.max(maxSize, 1);
+    }
+
+    int frequency(@NotNull Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_FREQUENCY;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(hash, i);
+            frequency = Math.min(frequency, (int) ((table[index & tableMask] >>> offsetOf(index)) & 0xF));
+        }
+
+        return frequency;
+    }
+
+    void increment(@NotNull Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int i = 0; i < SEEDS.length; i++) {
+            int index = indexOf(hash, i);
+            int offset = offsetOf(index);
+            long word = table[index & tableMask];
+            if (((word >>> offset) & 0xF) != MAX_FREQUENCY) {
+                table[index & tableMask] = word + (1L << offset);
+                added = true;
+            }
+        }
+
+        if (added && ++additions >= sampleSize) {
+            reset();
+        }
+    }
+
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+
+        additions /= 2;
+    }
+
+    private static int indexOf(int hash, int i) {
+        long index = (hash + SEEDS[i]) * SEEDS[i];
+        index += index >>> 32;
+        return (int) index;
+    }
+
+    /**
+     * @return offset of the counter in its word, it is taken from the bits of the index that are not used by the mask
+     */
+    private static int offsetOf(int index) {
+        return (index >>> 28) << 2;
+    }
+
+    private static int spread(int hash) {
+        hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+        return (hash >>> 16) ^ hash;
+    }
+}
@@ -0,0 +1,27 @@
+package ru.leonidm.simplebeans.aspects.profile;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Striped counters of one profile, so calls from different threads do not contend on them
+ */
+final class MethodProfile {
+
+    private final LongAdder callCount = new LongAdder();
+    private final LongAdder cpuTimeNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+
+    void record(long cpuTimeNanos, long allocatedBytes) {
+        callCount.increment();
+        this.cpuTimeNanos.add(cpuTimeNanos);
+        this.allocatedBytes.add(allocatedBytes);
+    }
+
+    @NotNull
+    ProfileSnapshot snapshot(@NotNull String name) {
+        return new ProfileSnapshot(name, callCount.sum(), ThreadResources.isCpuTimeSupported() ? cpuTimeNanos.sum() : -1,
+                ThreadResources.isAllocationSupported() ? allocatedBytes.sum() : -1);
+    }
+}
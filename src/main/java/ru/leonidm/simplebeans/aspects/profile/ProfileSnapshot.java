@@ -0,0 +1,59 @@
+package ru.leonidm.simplebeans.aspects.profile;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * CPU time and allocations recorded by one profile at some moment. Values of calls that are running now are not
+ * included, values of nested profiled calls are included into values of outer ones
+ */
+public final class ProfileSnapshot {
+
+    private final String name;
+    private final long callCount;
+    private final long cpuTimeNanos;
+    private final long allocatedBytes;
+
+    ProfileSnapshot(@NotNull String name, long callCount, long cpuTimeNanos, long allocatedBytes) {
+        this.name = name;
+        this.callCount = callCount;
+        this.cpuTimeNanos = cpuTimeNanos;
+        this.allocatedBytes = allocatedBytes;
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    public long getCallCount() {
+        return callCount;
+    }
+
+    /**
+     * @return CPU time spent by calls on their threads or -1 if JVM does not measure it
+     */
+    public long getCpuTimeNanos() {
+        return cpuTimeNanos;
+    }
+
+    /**
+     * @return bytes allocated by calls on their threads or -1 if JVM does not measure it
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    public double getMeanCpuTimeNanos() {
+        return callCount == 0 || cpuTimeNanos < 0 ? 0 : (double) cpuTimeNanos / callCount;
+    }
+
+    public double getMeanAllocatedBytes() {
+        return callCount == 0 || allocatedBytes < 0 ? 0 : (double) allocatedBytes / callCount;
+    }
+
+    @Override
+    public String toString() {
+        return "%s{calls=%d, cpu=%.3fms, allocated=%dB, mean cpu=%.3fms, mean allocated=%.0fB}".formatted(name, callCount,
+                cpuTimeNanos / 1e6, allocatedBytes, getMeanCpuTimeNanos() / 1e6, getMeanAllocatedBytes());
+    }
+}
@@ -0,0 +1,22 @@
+package ru.leonidm.simplebeans.aspects.profile;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * CPU time and allocated bytes of the annotated method or of all methods of the annotated type are recorded
+ *
+ * @see ProfiledAspect#getSnapshots()
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Profiled {
+
+    /**
+     * Name of the profile, by default it is {@code ClassName#methodName}. Methods with the same name share the profile
+     */
+    String value() default "";
+
+}
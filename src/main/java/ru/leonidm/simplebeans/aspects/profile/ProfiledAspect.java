@@ -0,0 +1,92 @@
+package ru.leonidm.simplebeans.aspects.profile;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+import ru.leonidm.simplebeans.proxy.aspects.Around;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.JoinPoint;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Built-in aspect that records CPU time and allocated bytes of methods annotated with {@link Profiled} and of methods
+ * that fit mask in {@code simplebeans.profile.mask} property. Only work done on the calling thread is measured, so
+ * async results are measured until they are returned
+ */
+@Aspect
+public class ProfiledAspect {
+
+    private final Map<Method, MethodProfile> methodToProfile = new ConcurrentHashMap<>();
+    private final Map<String, MethodProfile> profiles = new ConcurrentHashMap<>();
+
+    @Around(annotatedWith = Profiled.class)
+    public Object profile(JoinPoint joinPoint) throws Throwable {
+        MethodProfile profile = getProfile(joinPoint.getMethod());
+
+        long cpuTimeNanos = ThreadResources.getCpuTimeNanos();
+        long allocatedBytes = ThreadResources.getAllocatedBytes();
+        try {
+            return joinPoint.proceed();
+        } finally {
+            profile.record(ThreadResources.getCpuTimeNanos() - cpuTimeNanos, ThreadResources.getAllocatedBytes() - allocatedBytes);
+        }
+    }
+
+    /**
+     * Profiles methods that fit mask in {@code simplebeans.profile.mask} property, the advice is not registered if it
+     * is not set. Methods that are annotated with {@link Profiled} too are profiled only once
+     */
+    @Around("${simplebeans.profile.mask}")
+    public Object profileMasked(JoinPoint joinPoint) throws Throwable {
+        Method method = joinPoint.getMethod();
+        if (method.isAnnotationPresent(Profiled.class) || method.getDeclaringClass().isAnnotationPresent(Profiled.class)) {
+            return joinPoint.proceed();
+        }
+
+        return profile(joinPoint);
+    }
+
+    /**
+     * @return snapshot of the profile with given name or null if no method with such name was called yet
+     */
+    @Nullable
+    public ProfileSnapshot getSnapshot(@NotNull String name) {
+        MethodProfile profile = profiles.get(name);
+        return profile != null ? profile.snapshot(name) : null;
+    }
+
+    @NotNull
+    @Unmodifiable
+    public Map<String, ProfileSnapshot> getSnapshots() {
+        return profiles.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().snapshot(entry.getKey())));
+    }
+
+    @NotNull
+    private MethodProfile getProfile(@NotNull Method method) {
+        MethodProfile profile = methodToProfile.get(method);
+        if (profile != null) {
+            return profile;
+        }
+
+        return methodToProfile.computeIfAbsent(method, k -> profiles.computeIfAbsent(getName(method), name -> new MethodProfile()));
+    }
+
+    @NotNull
+    private static String getName(@NotNull Method method) {
+        Profiled profiled = method.getAnnotation(Profiled.class);
+        if (profiled == null) {
+            profiled = method.getDeclaringClass().getAnnotation(Profiled.class);
+        }
+
+        if (profiled != null && !profiled.value().isEmpty()) {
+            return profiled.value();
+        }
+
+        return method.getDeclaringClass().getSimpleName() + '#' + method.getName();
+    }
+}
@@ -0,0 +1,64 @@
+package ru.leonidm.simplebeans.aspects.profile;
+
+import ru.leonidm.simplebeans.logger.LoggerAdapter;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/**
+ * Counters of the current thread. Both of them are read by the JVM from the thread itself, so no safepoints
+ * or locks are involved, and they are -1 if the JVM does not support them
+ */
+final class ThreadResources {
+
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+    private static final com.sun.management.ThreadMXBean ALLOCATION_MX_BEAN = getAllocationMXBean();
+    private static final boolean CPU_TIME_SUPPORTED = enableCpuTime();
+
+    private ThreadResources() {
+
+    }
+
+    static boolean isCpuTimeSupported() {
+        return CPU_TIME_SUPPORTED;
+    }
+
+    static boolean isAllocationSupported() {
+        return ALLOCATION_MX_BEAN != null;
+    }
+
+    static long getCpuTimeNanos() {
+        return CPU_TIME_SUPPORTED ? THREAD_MX_BEAN.getCurrentThreadCpuTime() : -1;
+    }
+
+    static long getAllocatedBytes() {
+        return ALLOCATION_MX_BEAN != null ? ALLOCATION_MX_BEAN.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static boolean enableCpuTime() {
+        try {
+            if (THREAD_MX_BEAN.isCurrentThreadCpuTimeSupported()) {
+                THREAD_MX_BEAN.setThreadCpuTimeEnabled(true);
+                return true;
+            }
+        } catch (UnsupportedOperationException | SecurityException e) {
+            LoggerAdapter.get().debug("Thread CPU time cannot be enabled: {}", e);
+        }
+
+        return false;
+    }
+
+    private static com.sun.management.ThreadMXBean getAllocationMXBean() {
+        try {
+            if (THREAD_MX_BEAN instanceof com.sun.management.ThreadMXBean allocationMXBean
+                    && allocationMXBean.isThreadAllocatedMemorySupported()) {
+                allocationMXBean.setThreadAllocatedMemoryEnabled(true);
+                return allocationMXBean;
+            }
+        } catch (UnsupportedOperationException | SecurityException e) {
+            LoggerAdapter.get().debug("Thread allocated memory cannot be enabled: {}", e);
+        }
+
+        return null;
+    }
+}
@@ -0,0 +1,16 @@
+package ru.leonidm.simplebeans.aspects.singleflight;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Concurrent calls of the annotated method with equal arguments share one call and get its result or exception.
+ * Unlike {@link ru.leonidm.simplebeans.aspects.cache.Cacheable}, nothing is kept after the call is completed
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface SingleFlight {
+
+}
@@ -0,0 +1,71 @@
+package ru.leonidm.simplebeans.aspects.singleflight;
+
+import org.jetbrains.annotations.NotNull;
+import ru.leonidm.simplebeans.aspects.ArgumentsKey;
+import ru.leonidm.simplebeans.proxy.aspects.Around;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.JoinPoint;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in aspect that deduplicates concurrent calls of methods annotated with {@link SingleFlight}. The first call
+ * with some arguments runs the method and publishes its future, calls with equal arguments wait for it. Calls with
+ * different arguments never wait for each other
+ */
+@Aspect
+public class SingleFlightAspect {
+
+    private final Map<Method, Map<Object, CompletableFuture<Object>>> inFlightCalls = new ConcurrentHashMap<>();
+    private final LongAdder sharedCount = new LongAdder();
+
+    @Around(annotatedWith = SingleFlight.class)
+    public Object deduplicate(JoinPoint joinPoint) throws Throwable {
+        Map<Object, CompletableFuture<Object>> calls = getInFlightCalls(joinPoint.getMethod());
+        Object key = ArgumentsKey.of(joinPoint.getArgs());
+
+        CompletableFuture<Object> future = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = calls.putIfAbsent(key, future);
+        if (inFlight != null) {
+            sharedCount.increment();
+            try {
+                return inFlight.get();
+            } catch (ExecutionException e) {
+                throw e.getCause();
+            }
+        }
+
+        try {
+            Object result = joinPoint.proceed();
+            future.complete(result);
+            return result;
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+            throw t;
+        } finally {
+            calls.remove(key, future);
+        }
+    }
+
+    /**
+     * @return number of calls that got result of another call instead of calling the method
+     */
+    public long getSharedCount() {
+        return sharedCount.sum();
+    }
+
+    @NotNull
+    private Map<Object, CompletableFuture<Object>> getInFlightCalls(@NotNull Method method) {
+        Map<Object, CompletableFuture<Object>> calls = inFlightCalls.get(method);
+        if (calls != null) {
+            return calls;
+        }
+
+        return inFlightCalls.computeIfAbsent(method, k -> new ConcurrentHashMap<>());
+    }
+}
@@ -0,0 +1,95 @@
+package ru.leonidm.simplebeans.aspects.timed;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latencies recorded by one histogram at some moment
+ */
+public final class HistogramSnapshot {
+
+    private final String name;
+    private final long[] counts;
+    private final long count;
+    private final long errorCount;
+    private final long totalNanos;
+    private final long maxNanos;
+
+    HistogramSnapshot(@NotNull String name, long @NotNull [] counts, long errorCount, long totalNanos, long maxNanos) {
+        this.name = name;
+        this.counts = counts;
+        this.errorCount = errorCount;
+        this.totalNanos = totalNanos;
+        this.maxNanos = maxNanos;
+
+        long count = 0;
+        for (long bucketCount : counts) {
+            count += bucketCount;
+        }
+        this.count = count;
+    }
+
+    @NotNull
+    public String getName() {
+        return name;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    /**
+     * @return number of calls that have thrown an exception
+     */
+    public long getErrorCount() {
+        return errorCount;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+
+    public double getMeanNanos() {
+        return count == 0 ? 0 : (double) totalNanos / count;
+    }
+
+    /**
+     * @param percentile percentile from 0 to 100
+     * @return the least latency in nanoseconds that is not less than given percent of recorded ones
+     */
+    public long getPercentileNanos(double percentile) {
+        if (percentile < 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile must be from 0 to 100, got %s".formatted(percentile));
+        }
+
+        if (count == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(LatencyHistogram.highestValueOf(i), maxNanos);
+            }
+        }
+
+        return maxNanos;
+    }
+
+    @Override
+    public String toString() {
+        return "%s{count=%d, errors=%d, mean=%.3fms, p50=%.3fms, p99=%.3fms, max=%.3fms}".formatted(name, count, errorCount,
+                toMillis(getMeanNanos()), toMillis(getPercentileNanos(50)), toMillis(getPercentileNanos(99)), toMillis(maxNanos));
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+}
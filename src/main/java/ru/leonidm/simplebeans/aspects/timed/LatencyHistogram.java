@@ -0,0 +1,93 @@
+package ru.leonidm.simplebeans.aspects.timed;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds with fixed memory. Buckets are log-linear: every power of two is split into
+ * {@value #SUB_BUCKETS} buckets, so values are recorded with relative error of at most 1/32, about 3.1%. Recording
+ * is lock-free and allocates nothing, threads write to different stripes to avoid contention
+ */
+final class LatencyHistogram {
+
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /**
+     * Greater values are recorded as this one, it is more than an hour
+     */
+    static final long MAX_VALUE = (1L << 42) - 1;
+    static final int BUCKETS = indexOf(MAX_VALUE) + 1;
+
+    private static final int ERRORS = BUCKETS;
+    private static final int TOTAL = BUCKETS + 1;
+    private static final int MAX = BUCKETS + 2;
+    private static final int STRIPE_LENGTH = BUCKETS + 3;
+
+    private final AtomicLongArray[] stripes;
+    private final int stripeMask;
+
+    LatencyHistogram() {
+        int stripeCount = Math.min(Integer.highestOneBit(Runtime.getRuntime().availableProcessors() * 2 - 1), 16);
+        stripes = new AtomicLongArray[stripeCount];
+        for (int i = 0; i < stripeCount; i++) {
+            stripes[i] = new AtomicLongArray(STRIPE_LENGTH);
+        }
+
+        stripeMask = stripeCount - 1;
+    }
+
+    void record(long nanos, boolean error) {
+        long value = Math.max(0, Math.min(nanos, MAX_VALUE));
+
+        long threadId = Thread.currentThread().getId();
+        AtomicLongArray stripe = stripes[(int) (threadId ^ (threadId >>> 16)) & stripeMask];
+        stripe.getAndIncrement(indexOf(value));
+        stripe.getAndAdd(TOTAL, value);
+        if (error) {
+            stripe.getAndIncrement(ERRORS);
+        }
+
+        long max = stripe.get(MAX);
+        while (value > max && !stripe.weakCompareAndSetVolatile(MAX, max, value)) {
+            max = stripe.get(MAX);
+        }
+    }
+
+    /**
+     * Merges stripes without stopping writers, so values recorded during the snapshot may be partially included
+     */
+    @NotNull
+    HistogramSnapshot snapshot(@NotNull String name) {
+        long[] counts = new long[BUCKETS];
+        long errors = 0;
+        long total = 0;
+        long max = 0;
+        for (AtomicLongArray stripe : stripes) {
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] += stripe.get(i);
+            }
+
+            errors += stripe.get(ERRORS);
+            total += stripe.get(TOTAL);
+            max = Math.max(max, stripe.get(MAX));
+        }
+
+        return new HistogramSnapshot(name, counts, errors, total, max);
+    }
+
+    static int indexOf(long value) {
+        int magnitude = 63 - Long.numberOfLeadingZeros(value | 1);
+        int shift = Math.max(0, magnitude - SUB_BUCKET_BITS);
+        return (shift << SUB_BUCKET_BITS) + (int) (value >>> shift);
+    }
+
+    /**
+     * @return the greatest value that is recorded into the bucket with given index
+     */
+    static long highestValueOf(int index) {
+        int shift = Math.max(0, (index >>> SUB_BUCKET_BITS) - 1);
+        long mantissa = index - ((long) shift << SUB_BUCKET_BITS);
+        return ((mantissa + 1) << shift) - 1;
+    }
+}
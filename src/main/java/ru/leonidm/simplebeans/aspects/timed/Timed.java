@@ -0,0 +1,23 @@
+package ru.leonidm.simplebeans.aspects.timed;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Latencies of the annotated method or of all methods of the annotated type are recorded into the histogram
+ *
+ * @see TimedAspect#getSnapshots()
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Timed {
+
+    /**
+     * Name of the histogram, by default it is {@code ClassName#methodName}. Methods with the same name share
+     * the histogram
+     */
+    String value() default "";
+
+}
@@ -0,0 +1,167 @@
+package ru.leonidm.simplebeans.aspects.timed;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.jetbrains.annotations.Unmodifiable;
+import ru.leonidm.simplebeans.proxy.aspects.After;
+import ru.leonidm.simplebeans.proxy.aspects.Around;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.AsyncResults;
+import ru.leonidm.simplebeans.proxy.aspects.Before;
+import ru.leonidm.simplebeans.proxy.aspects.JoinPoint;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Origin;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Thrown;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Built-in aspect that records latencies of methods annotated with {@link Timed}. Synchronous methods are timed by
+ * a pair of before and after advices that keep start times on the stack of the calling thread, so they can be
+ * inlined and neither allocate nor use reflection. Async methods are timed by the around advice until their results
+ * are completed
+ */
+@Aspect
+public class TimedAspect {
+
+    private final Map<Method, LatencyHistogram> methodToHistogram = new ConcurrentHashMap<>();
+    private final Map<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final ThreadLocal<Starts> starts = ThreadLocal.withInitial(Starts::new);
+
+    @Before(annotatedWith = Timed.class)
+    public void start(@Origin Method method) {
+        if (!AsyncResults.isAsync(method)) {
+            starts.get().push(method, System.nanoTime());
+        }
+    }
+
+    @After(annotatedWith = Timed.class)
+    public void stop(@Origin Method method, @Thrown Throwable thrown) {
+        if (AsyncResults.isAsync(method)) {
+            return;
+        }
+
+        long start = starts.get().pop(method);
+        if (start != Starts.ABSENT) {
+            getHistogram(method).record(System.nanoTime() - start, thrown != null);
+        }
+    }
+
+    /**
+     * Async method is timed until its result is completed
+     */
+    @Around(annotatedWith = Timed.class)
+    public CompletionStage<?> timeAsync(JoinPoint joinPoint) throws Throwable {
+        LatencyHistogram histogram = getHistogram(joinPoint.getMethod());
+
+        long start = System.nanoTime();
+        CompletionStage<?> result;
+        try {
+            result = (CompletionStage<?>) joinPoint.proceed();
+        } catch (Throwable t) {
+            histogram.record(System.nanoTime() - start, true);
+            throw t;
+        }
+
+        if (result == null) {
+            histogram.record(System.nanoTime() - start, false);
+            return null;
+        }
+
+        result.whenComplete((value, t) -> histogram.record(System.nanoTime() - start, t != null));
+        return result;
+    }
+
+    /**
+     * @return snapshot of the histogram with given name or null if no method with such name was called yet
+     */
+    @Nullable
+    public HistogramSnapshot getSnapshot(@NotNull String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        return histogram != null ? histogram.snapshot(name) : null;
+    }
+
+    /**
+     * @return snapshots of all histograms by their names, they are taken without stopping methods that record them
+     */
+    @NotNull
+    @Unmodifiable
+    public Map<String, HistogramSnapshot> getSnapshots() {
+        return histograms.entrySet().stream()
+                .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey, entry -> entry.getValue().snapshot(entry.getKey())));
+    }
+
+    @NotNull
+    private LatencyHistogram getHistogram(@NotNull Method method) {
+        LatencyHistogram histogram = methodToHistogram.get(method);
+        if (histogram != null) {
+            return histogram;
+        }
+
+        return methodToHistogram.computeIfAbsent(method, k -> histograms.computeIfAbsent(getName(method), name -> new LatencyHistogram()));
+    }
+
+    @NotNull
+    private static String getName(@NotNull Method method) {
+        Timed timed = method.getAnnotation(Timed.class);
+        if (timed == null) {
+            timed = method.getDeclaringClass().getAnnotation(Timed.class);
+        }
+
+        if (timed != null && !timed.value().isEmpty()) {
+            return timed.value();
+        }
+
+        return method.getDeclaringClass().getSimpleName() + '#' + method.getName();
+    }
+
+    /**
+     * Start times of timed calls in progress on one thread. Frames of calls whose after advices were not run, for
+     * example, because some before advice has thrown, are dropped when the enclosing call is stopped
+     */
+    private static final class Starts {
+
+        private static final long ABSENT = Long.MIN_VALUE;
+        private static final int MAX_SIZE = 1024;
+
+        private Method[] methods = new Method[16];
+        private long[] times = new long[16];
+        private int size;
+
+        private void push(@NotNull Method method, long time) {
+            if (size == MAX_SIZE) {
+                // Only frames that were never stopped can pile up so deep
+                Arrays.fill(methods, null);
+                size = 0;
+            }
+
+            if (size == methods.length) {
+                methods = Arrays.copyOf(methods, size * 2);
+                times = Arrays.copyOf(times, size * 2);
+            }
+
+            methods[size] = method;
+            times[size] = time;
+            size++;
+        }
+
+        /**
+         * @return start time of the innermost call of given method or {@link #ABSENT} if there is no such
+         */
+        private long pop(@NotNull Method method) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (methods[i] == method) {
+                    Arrays.fill(methods, i, size, null);
+                    size = i;
+                    return times[i];
+                }
+            }
+
+            return ABSENT;
+        }
+    }
+}
@@ -21,6 +21,9 @@ final class SystemLogger extends AbstractLogger {
             System.err.print("[SimpleBeans] ");
             System.err.printf(string, args);
             System.err.println();
+            if (args.length > 0 && args[args.length - 1] instanceof Throwable throwable) {
+                throwable.printStackTrace();
+            }
         }
     }
 
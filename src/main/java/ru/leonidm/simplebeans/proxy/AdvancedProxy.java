@@ -1,50 +1,19 @@
 package ru.leonidm.simplebeans.proxy;
 
-import net.bytebuddy.ByteBuddy;
-import net.bytebuddy.dynamic.DynamicType;
-import net.bytebuddy.implementation.MethodDelegation;
 import net.bytebuddy.implementation.bind.annotation.AllArguments;
-import net.bytebuddy.implementation.bind.annotation.Origin;
+import net.bytebuddy.implementation.bind.annotation.FieldValue;
 import net.bytebuddy.implementation.bind.annotation.RuntimeType;
 import net.bytebuddy.implementation.bind.annotation.This;
-import net.bytebuddy.matcher.ElementMatchers;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import ru.leonidm.simplebeans.applications.ApplicationContext;
-import ru.leonidm.simplebeans.applications.ApplicationProperties;
-import ru.leonidm.simplebeans.logger.LoggerAdapter;
-import ru.leonidm.simplebeans.proxy.aspects.Aspect;
-import ru.leonidm.simplebeans.utils.ExceptionUtils;
-import sun.misc.Unsafe;
-
-import java.io.IOException;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
-import java.lang.reflect.Method;
-import java.lang.reflect.Modifier;
-import java.lang.reflect.Proxy;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
 
-public final class AdvancedProxy {
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
 
-    private static final Map<Class<?>, Class<?>> PROXIED_CLASSES = Collections.synchronizedMap(new HashMap<>());
-    private static final Map<Class<?>, Class<?>> PROXY_CLASS_TO_ORIGINAL = Collections.synchronizedMap(new HashMap<>());
-    private static final Unsafe UNSAFE;
-
-    static {
-        try {
-            Field field = Unsafe.class.getDeclaredField("theUnsafe");
-            field.setAccessible(true);
-            UNSAFE = (Unsafe) field.get(null);
-        } catch (Exception e) {
-            throw new IllegalStateException(e);
-        }
-    }
+public final class AdvancedProxy {
 
     private AdvancedProxy() {
 
@@ -52,98 +21,16 @@ public final class AdvancedProxy {
 
     @NotNull
     private static <T> T newProxyInstance(@NotNull T object, @NotNull Class<?> objectClass, @NotNull ApplicationContext context) {
-        if (objectClass.isInterface()) {
-            Object proxy = Proxy.newProxyInstance(objectClass.getClassLoader(), new Class[]{objectClass}, new AspectInvocationHandler(context, object));
-            PROXY_CLASS_TO_ORIGINAL.put(proxy.getClass(), objectClass);
-            return (T) proxy;
-        }
-
-        Class<?> proxyClass = PROXIED_CLASSES.computeIfAbsent(objectClass, k -> {
-            if (objectClass.isAnnotationPresent(Aspect.class)) {
-                return objectClass;
-            }
-
-            if (Modifier.isFinal(objectClass.getModifiers())) {
-                LoggerAdapter.get().debug("Cannot proxy {} because it is final class", objectClass.getName());
-                return objectClass;
-            }
-
-            Constructor<?>[] constructors = objectClass.getDeclaredConstructors();
-            if (constructors.length != 1) {
-                LoggerAdapter.get().debug("Cannot proxy {} because it has more than one constructor", objectClass.getName());
-                return objectClass;
-            }
-
-            Constructor<?> constructor = constructors[0];
-            int constructorModifiers = constructor.getModifiers();
-            if (!Modifier.isPublic(constructorModifiers) && !Modifier.isProtected(constructorModifiers)) {
-                LoggerAdapter.get().debug("Cannot proxy {} because it has non-public and non-protected constructor", objectClass.getName());
-                return objectClass;
-            }
-
-            LoggerAdapter.get().debug("Creating proxy class for {}", objectClass.getSimpleName());
-
-            DynamicType.Builder<?> builder = new ByteBuddy()
-                    .subclass(objectClass)
-                    .implement(ProxyClass.class)
-                    .defineField("invocationHandler", AspectInvocationHandler.class, Modifier.PRIVATE)
-                    .annotateType(objectClass.getAnnotations());
-
-            Set<Method> methodsSet = new HashSet<>(List.of(objectClass.getDeclaredMethods()));
-            methodsSet.addAll(List.of(objectClass.getMethods()));
-
-            for (Method method : methodsSet) {
-                int modifiers = method.getModifiers();
-                if (Modifier.isFinal(modifiers)) {
-                    if (method.getDeclaringClass() != Object.class) {
-                        LoggerAdapter.get().debug("Cannot proxy {} because it is final method", method);
-                    }
-                    continue;
-                }
-
-                if (Modifier.isPrivate(modifiers)) {
-                    LoggerAdapter.get().debug("Cannot proxy {} because it is private method", method);
-                    continue;
-                }
-
-                builder = builder.method(ElementMatchers.is(method))
-                        .intercept(MethodDelegation.to(AspectInterceptor.INSTANCE))
-                        .annotateMethod(method.getAnnotations());
-            }
-
-            try (DynamicType.Unloaded<?> unloaded = builder.make()) {
-                Class<?> loadedClass = unloaded.load(objectClass.getClassLoader()).getLoaded();
-                LoggerAdapter.get().debug("Created proxy class for {}", objectClass.getSimpleName());
-
-                PROXY_CLASS_TO_ORIGINAL.put(loadedClass, objectClass);
-
-                return loadedClass;
-            } catch (IOException e) {
-                throw new IllegalStateException(e);
-            }
-        });
-
-        if (proxyClass == objectClass) {
+        if (object instanceof ProxyClass) {
             return object;
         }
 
-        try {
-            T t = (T) UNSAFE.allocateInstance(proxyClass);
-
-            Field field = t.getClass().getDeclaredField("invocationHandler");
-            field.setAccessible(true);
-            field.set(t, new AspectInvocationHandler(context, object));
-
-            return t;
-        } catch (Exception e) {
-            throw ExceptionUtils.wrapToRuntime(e);
-        }
+        return context.getProxyFactory().newProxyInstance(object, objectClass);
     }
 
     @NotNull
     public static <T> T proxyIfNeeded(@NotNull T object, @NotNull Class<?> objectClass, @NotNull ApplicationContext context) {
-        ApplicationProperties properties = context.getProperties();
-        if (properties.getProperty("simplebeans.aop.enabled", "true").equalsIgnoreCase("true")) {
+        if (context.getAopEngine() == AopEngine.PROXY && context.isAopEnabled()) {
             return newProxyInstance(object, objectClass, context);
         }
 
@@ -151,7 +38,16 @@ public final class AdvancedProxy {
     }
 
     public static boolean isProxyClass(@NotNull Class<?> objectClass) {
-        return Proxy.isProxyClass(objectClass) || ProxyClass.class.isAssignableFrom(objectClass);
+        return ProxyClass.class.isAssignableFrom(objectClass);
+    }
+
+    /**
+     * @return real object of given proxy or given object itself if it is not a proxy
+     */
+    @NotNull
+    public static <T> T getRealObject(@NotNull T object) {
+        Object realObject = ProxyFactory.getRealObject(object);
+        return realObject != null ? (T) realObject : object;
     }
 
     @NotNull
@@ -160,12 +56,19 @@ public final class AdvancedProxy {
             return (Class<T>) objectClass;
         }
 
-        return (Class<T>) PROXY_CLASS_TO_ORIGINAL.get(objectClass);
+        return (Class<T>) ProxyClassData.of(objectClass).getOriginalClass();
     }
 
-    public static class AspectInterceptor {
+    /**
+     * Index of the intercepted method in the static array of proxy methods of the proxy class
+     */
+    @Retention(RetentionPolicy.RUNTIME)
+    @Target(ElementType.PARAMETER)
+    @interface Slot {
+
+    }
 
-        public static final AspectInterceptor INSTANCE = new AspectInterceptor();
+    public static final class AspectInterceptor {
 
         private AspectInterceptor() {
 
@@ -173,25 +76,12 @@ public final class AdvancedProxy {
 
         @RuntimeType
         @Nullable
-        public Object onMethodCall(@This @NotNull Object proxyObject,
-                                   @Origin @NotNull Method method,
-                                   @AllArguments @Nullable Object @NotNull [] args) {
-            try {
-                Class<?> proxyClass = proxyObject.getClass();
-
-                Field field = proxyClass.getDeclaredField("invocationHandler");
-                field.setAccessible(true);
-                AspectInvocationHandler invocationHandler = (AspectInvocationHandler) field.get(proxyObject);
-
-                Object result = invocationHandler.invoke(proxyObject, method, args);
-                if (result != null) {
-                    return proxyIfNeeded(result, method.getReturnType(), invocationHandler.getContext());
-                }
-
-                return null;
-            } catch (Throwable e) {
-                throw ExceptionUtils.wrapToRuntime(e);
-            }
+        public static Object onMethodCall(@This @NotNull Object proxyObject,
+                                          @AllArguments @Nullable Object @NotNull [] args,
+                                          @FieldValue(ProxyClassGenerator.TARGET_FIELD) @NotNull Object realObject,
+                                          @FieldValue(ProxyClassGenerator.METHODS_FIELD) @NotNull ProxyMethod @NotNull [] proxyMethods,
+                                          @Slot int slot) throws Throwable {
+            return proxyMethods[slot].invoke(proxyObject, realObject, args);
         }
     }
 }
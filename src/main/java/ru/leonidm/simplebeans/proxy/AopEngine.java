@@ -0,0 +1,32 @@
+package ru.leonidm.simplebeans.proxy;
+
+import org.jetbrains.annotations.NotNull;
+import ru.leonidm.simplebeans.applications.ApplicationProperties;
+
+import java.util.Locale;
+
+/**
+ * Way advices are applied to beans, selected by {@code simplebeans.aop.engine} property
+ */
+public enum AopEngine {
+
+    /**
+     * Beans and return values are wrapped with generated proxy classes
+     */
+    PROXY,
+    /**
+     * Advices are woven into the bytecode of advised methods by java agent, so beans are not proxied
+     */
+    WEAVING;
+
+    @NotNull
+    public static AopEngine of(@NotNull ApplicationProperties properties) {
+        String engine = properties.getProperty("simplebeans.aop.engine", "proxy");
+
+        try {
+            return valueOf(engine.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalStateException("Unknown AOP engine '%s'".formatted(engine));
+        }
+    }
+}
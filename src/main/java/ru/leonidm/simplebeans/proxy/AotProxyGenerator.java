@@ -0,0 +1,109 @@
+package ru.leonidm.simplebeans.proxy;
+
+import net.bytebuddy.dynamic.DynamicType;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.logger.LoggerAdapter;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Build-time step that generates proxy classes of the application into the resources directory, so they are loaded
+ * instead of being generated at runtime. Proxy classes are generated for all beans and for return types of their
+ * methods that are loaded by the same class loader as the application.
+ * <p>
+ * Usage: {@code AotProxyGenerator <application class> <output directory>}
+ */
+public final class AotProxyGenerator {
+
+    private AotProxyGenerator() {
+
+    }
+
+    public static void main(@NotNull String @NotNull [] args) throws ClassNotFoundException, IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: AotProxyGenerator <application class> <output directory>");
+        }
+
+        Class<?> applicationClass = Class.forName(args[0]);
+        int generated = generate(applicationClass, Path.of(args[1]));
+        LoggerAdapter.get().info("Generated {} proxy classes for {}", generated, applicationClass.getName());
+    }
+
+    /**
+     * @return count of generated proxy classes
+     */
+    public static int generate(@NotNull Class<?> applicationClass, @NotNull Path directory) throws IOException {
+        try (ApplicationContext context = ApplicationContext.scan(applicationClass)) {
+            ProxyClassGenerator generator = context.getProxyFactory().getGenerator();
+
+            Map<String, byte[]> proxyClasses = new HashMap<>();
+            Map<String, Set<String>> advisedSignatures = new HashMap<>();
+
+            for (Class<?> objectClass : collectClasses(context.getBeansClasses(), applicationClass.getClassLoader())) {
+                List<Class<?>> usedClasses = List.of(objectClass);
+                String key = AotProxyIndex.getKey(usedClasses);
+
+                ProxyClassLayout layout;
+                DynamicType.Unloaded<?> unloaded;
+                if (objectClass.isInterface()) {
+                    layout = generator.getLayout(ProxyClassGenerator.getInterfacesMethods(usedClasses));
+                    unloaded = generator.generateInterfacesProxy(usedClasses, layout);
+                } else {
+                    layout = generator.getLayout(ProxyClassGenerator.getClassMethods(objectClass));
+                    unloaded = generator.generateClassProxy(objectClass, layout);
+                }
+
+                if (unloaded == null) {
+                    continue;
+                }
+
+                try (unloaded) {
+                    if (!ProxyFactory.canBeHidden(unloaded, objectClass)) {
+                        LoggerAdapter.get().debug("Cannot prebuild proxy class for {}", objectClass.getName());
+                        continue;
+                    }
+
+                    proxyClasses.put(key, unloaded.getBytes());
+                    advisedSignatures.put(key, generator.getAdvisedSignatures(layout));
+                }
+            }
+
+            AotProxyIndex.write(directory, proxyClasses, advisedSignatures);
+            return proxyClasses.size();
+        }
+    }
+
+    /**
+     * @return given bean classes and return types of their methods that can be proxied
+     */
+    @NotNull
+    private static Set<Class<?>> collectClasses(@NotNull Collection<Class<?>> beansClasses, @Nullable ClassLoader classLoader) {
+        Set<Class<?>> classes = new LinkedHashSet<>();
+        Deque<Class<?>> queue = new ArrayDeque<>(beansClasses);
+
+        while (!queue.isEmpty()) {
+            Class<?> objectClass = queue.poll();
+            if (objectClass.getClassLoader() != classLoader || !ProxyFactory.canBeProxied(objectClass) || !classes.add(objectClass)) {
+                continue;
+            }
+
+            for (Method method : objectClass.getMethods()) {
+                queue.add(method.getReturnType());
+            }
+        }
+
+        return classes;
+    }
+}
@@ -0,0 +1,118 @@
+package ru.leonidm.simplebeans.proxy;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Index of proxy classes generated at build time by {@link AotProxyGenerator}. Bytes of every proxy class are
+ * stored as resource, and index stores signatures of advised methods the proxy class was generated for, so
+ * the proxy class is not used if advices of the application have changed since then
+ */
+final class AotProxyIndex {
+
+    static final String INDEX_RESOURCE = "META-INF/simplebeans/proxies.idx";
+    static final String PROXY_RESOURCE_PREFIX = "META-INF/simplebeans/proxies/";
+    static final String PROXY_RESOURCE_SUFFIX = ".bin";
+
+    private static final Map<ClassLoader, Map<String, Set<String>>> INDEXES = Collections.synchronizedMap(new WeakHashMap<>());
+
+    private AotProxyIndex() {
+
+    }
+
+    /**
+     * @return key of the proxy class of given class or given interfaces sorted by their names
+     */
+    @NotNull
+    static String getKey(@NotNull List<Class<?>> classes) {
+        return classes.stream()
+                .map(Class::getName)
+                .collect(Collectors.joining("+"));
+    }
+
+    /**
+     * @return bytes of the proxy class generated at build time or null if there is no such proxy class
+     * or it was generated for other advised methods
+     */
+    static byte @Nullable [] load(@NotNull ClassLoader classLoader, @NotNull String key, @NotNull Set<String> advisedSignatures) {
+        Set<String> indexedSignatures = INDEXES.computeIfAbsent(classLoader, AotProxyIndex::readIndexes).get(key);
+        if (indexedSignatures == null || !indexedSignatures.equals(advisedSignatures)) {
+            return null;
+        }
+
+        try (InputStream inputStream = classLoader.getResourceAsStream(PROXY_RESOURCE_PREFIX + key + PROXY_RESOURCE_SUFFIX)) {
+            return inputStream != null ? inputStream.readAllBytes() : null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes proxy classes and index of them into given directory, which then should be added to the resources
+     */
+    static void write(@NotNull Path directory, @NotNull Map<String, byte[]> proxyClasses,
+                      @NotNull Map<String, Set<String>> advisedSignatures) throws IOException {
+        Path proxiesDirectory = directory.resolve(PROXY_RESOURCE_PREFIX);
+        Files.createDirectories(proxiesDirectory);
+
+        StringBuilder index = new StringBuilder();
+        for (Map.Entry<String, byte[]> entry : proxyClasses.entrySet()) {
+            String key = entry.getKey();
+            Files.write(proxiesDirectory.resolve(key + PROXY_RESOURCE_SUFFIX), entry.getValue());
+
+            index.append(key);
+            for (String signature : advisedSignatures.get(key)) {
+                index.append('\t').append(signature);
+            }
+            index.append('\n');
+        }
+
+        Files.writeString(directory.resolve(INDEX_RESOURCE), index, StandardCharsets.UTF_8);
+    }
+
+    @NotNull
+    private static Map<String, Set<String>> readIndexes(@NotNull ClassLoader classLoader) {
+        Map<String, Set<String>> index = new HashMap<>();
+
+        try {
+            Enumeration<URL> resources = classLoader.getResources(INDEX_RESOURCE);
+            while (resources.hasMoreElements()) {
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(resources.nextElement().openStream(),
+                        StandardCharsets.UTF_8))) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isEmpty()) {
+                            continue;
+                        }
+
+                        String[] parts = line.split("\t");
+                        index.putIfAbsent(parts[0], Set.of(Arrays.copyOfRange(parts, 1, parts.length)));
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return index;
+    }
+}
@@ -2,45 +2,65 @@ package ru.leonidm.simplebeans.proxy;
 
 import org.jetbrains.annotations.NotNull;
 import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.proxy.aspects.JoinPoint;
 import ru.leonidm.simplebeans.proxy.aspects.PointCutType;
 import ru.leonidm.simplebeans.proxy.aspects.WrappedPointCut;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
+import java.util.List;
 
+/**
+ * Invocation handler shared by all instances of one proxy class, real objects are stored in proxies themselves
+ */
 public final class AspectInvocationHandler implements InvocationHandler {
 
-    private final Object realObject;
     private final ApplicationContext context;
+    private final Class<?> originalClass;
 
-    public AspectInvocationHandler(@NotNull ApplicationContext context, @NotNull Object realObject) {
-        this.realObject = realObject;
+    public AspectInvocationHandler(@NotNull ApplicationContext context, @NotNull Class<?> originalClass) {
         this.context = context;
+        this.originalClass = originalClass;
     }
 
     @NotNull
-    public Object getRealObject() {
-        return realObject;
+    public ApplicationContext getContext() {
+        return context;
     }
 
     @NotNull
-    public ApplicationContext getContext() {
-        return context;
+    public Class<?> getOriginalClass() {
+        return originalClass;
     }
 
     @Override
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        return invoke(proxy, AdvancedProxy.getRealObject(proxy), method, args);
+    }
+
+    public Object invoke(@NotNull Object proxy, @NotNull Object realObject, @NotNull Method method, Object[] args) throws Throwable {
         for (WrappedPointCut wrappedPointCut : context.getPointCuts(method, PointCutType.BEFORE)) {
+            if (!wrappedPointCut.isActive()) {
+                continue;
+            }
+
             wrappedPointCut.run(proxy, method, args, null);
         }
-        Object result = method.invoke(realObject, args);
-        for (WrappedPointCut wrappedPointCut : context.getPointCuts(method, PointCutType.AFTER)) {
-            Object pointCutResult = wrappedPointCut.run(proxy, method, args, result);
-            if (!wrappedPointCut.isVoid()) {
-                result = pointCutResult;
+
+        List<WrappedPointCut> around = context.getPointCuts(method, PointCutType.AROUND);
+        List<WrappedPointCut> after = context.getPointCuts(method, PointCutType.AFTER);
+        Object result;
+        try {
+            if (around.isEmpty()) {
+                result = ProxyMethod.invokeMethod(method, realObject, args);
+            } else {
+                result = new JoinPoint(proxy, realObject, method, args, around.toArray(WrappedPointCut[]::new)).proceed();
             }
+        } catch (Throwable t) {
+            WrappedPointCut.runAfterThrown(after, proxy, method, args, t);
+            throw t;
         }
 
-        return result;
+        return WrappedPointCut.runAfter(after, proxy, method, args, result);
     }
 }
@@ -0,0 +1,564 @@
+package ru.leonidm.simplebeans.proxy;
+
+import net.bytebuddy.dynamic.scaffold.InstrumentedType;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.ByteCodeAppender;
+import net.bytebuddy.jar.asm.Handle;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.jar.asm.Opcodes;
+import net.bytebuddy.jar.asm.Type;
+import org.jetbrains.annotations.NotNull;
+import ru.leonidm.simplebeans.proxy.aspects.AsyncResults;
+import ru.leonidm.simplebeans.proxy.aspects.PointCutType;
+import ru.leonidm.simplebeans.proxy.aspects.WrappedPointCut;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Arg;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Args;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Origin;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Result;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.ReturnValue;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.This;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Thrown;
+import ru.leonidm.simplebeans.utils.ExceptionUtils;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Body of the intercepted method of proxy class. It calls the real object directly while the method has no active
+ * advices, and otherwise calls {@link ProxyMethod#invoke}, see {@link ProxyMethod#relink()}.
+ * <p>
+ * If advices are inlined, the body calls advice methods of aspects directly, in the same order as
+ * {@link ProxyMethod} does, and falls back to {@link ProxyMethod#invoke} only if aspects are changed at runtime.
+ * Arguments of the advised method are collected into the array only if some advice takes {@link Args}, and
+ * {@link Arg} and {@link ReturnValue} of the same primitive type are passed as they are, so in most cases the whole
+ * chain is a few plain calls the JIT can inline. Exceptions of advices are wrapped with
+ * {@link ExceptionUtils#wrapToRuntime(Throwable)} like in {@link ProxyMethod#invoke}
+ */
+final class InlineAdviceImplementation implements Implementation {
+
+    private static final String PROXY_METHOD = Type.getInternalName(ProxyMethod.class);
+    private static final String OBJECT = Type.getInternalName(Object.class);
+    private static final String EXCEPTION_UTILS = Type.getInternalName(ExceptionUtils.class);
+    private static final Handle BOOTSTRAP = new Handle(Opcodes.H_INVOKESTATIC, PROXY_METHOD, "bootstrap",
+            MethodType.methodType(CallSite.class, MethodHandles.Lookup.class, String.class, MethodType.class, int.class)
+                    .toMethodDescriptorString(), false);
+
+    private final int slot;
+    private final Method method;
+    private final List<WrappedPointCut> before;
+    private final List<WrappedPointCut> after;
+    private final boolean inlined;
+    private final boolean proxyResult;
+
+    /**
+     * @param inlined whether given advices are inlined, otherwise they are ignored
+     */
+    InlineAdviceImplementation(int slot, @NotNull Method method, @NotNull List<WrappedPointCut> before,
+                               @NotNull List<WrappedPointCut> after, boolean inlined, boolean proxyResult) {
+        this.slot = slot;
+        this.method = method;
+        this.before = inlined ? before : List.of();
+        this.after = inlined ? after : List.of();
+        this.inlined = inlined;
+        this.proxyResult = proxyResult;
+    }
+
+    /**
+     * Generated body calls the real object directly, so the method and its class must be public
+     */
+    static boolean canGenerate(@NotNull Method method) {
+        return isAccessible(method);
+    }
+
+    /**
+     * Advices can be inlined only if they are reachable from the proxy class without reflection and are run on
+     * the caller thread on every call, after advices of async methods are chained onto their results instead
+     */
+    static boolean canInline(@NotNull Method method, @NotNull List<WrappedPointCut> pointCuts) {
+        if (!canGenerate(method)) {
+            return false;
+        }
+
+        boolean isAsync = AsyncResults.isAsync(method);
+
+        ClassLoader classLoader = method.getDeclaringClass().getClassLoader();
+        for (WrappedPointCut pointCut : pointCuts) {
+            Method advice = pointCut.getMethod();
+            if (!isAccessible(advice) || Modifier.isStatic(advice.getModifiers()) || pointCut.isAsync()
+                    || isAsync && pointCut.getPointCut() == PointCutType.AFTER) {
+                return false;
+            }
+
+            try {
+                if (classLoader == null || Class.forName(advice.getDeclaringClass().getName(), false, classLoader) != advice.getDeclaringClass()) {
+                    return false;
+                }
+            } catch (ClassNotFoundException e) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static boolean isAccessible(@NotNull Method method) {
+        return Modifier.isPublic(method.getModifiers())
+                && Modifier.isPublic(method.getDeclaringClass().getModifiers());
+    }
+
+    @Override
+    @NotNull
+    public InstrumentedType prepare(@NotNull InstrumentedType instrumentedType) {
+        return instrumentedType;
+    }
+
+    @Override
+    @NotNull
+    public ByteCodeAppender appender(@NotNull Target implementationTarget) {
+        String typeName = implementationTarget.getInstrumentedType().getInternalName();
+
+        return (methodVisitor, implementationContext, instrumentedMethod) -> {
+            new Generator(methodVisitor, typeName).generate();
+            return new ByteCodeAppender.Size(0, 0);
+        };
+    }
+
+    private final class Generator {
+
+        private final MethodVisitor visitor;
+        private final String typeName;
+        private final Class<?>[] parameterTypes = method.getParameterTypes();
+        private final int[] parameterLocals = new int[parameterTypes.length];
+        private final Class<?> returnType = method.getReturnType();
+        private final boolean collectArgs;
+        private final boolean argsChanged;
+        private final boolean throwing;
+        private final int stateLocal;
+        private final int proxyMethodLocal;
+        private final int argsLocal;
+        private final int aspectLocal;
+        private final int resultLocal;
+        private final int thrownLocal;
+        private final Label adviceThrown = new Label();
+
+        private Generator(@NotNull MethodVisitor visitor, @NotNull String typeName) {
+            this.visitor = visitor;
+            this.typeName = typeName;
+
+            int local = 1;
+            for (int i = 0; i < parameterTypes.length; i++) {
+                parameterLocals[i] = local;
+                local += Type.getType(parameterTypes[i]).getSize();
+            }
+
+            List<WrappedPointCut> pointCuts = new ArrayList<>(before);
+            pointCuts.addAll(after);
+            collectArgs = pointCuts.stream().anyMatch(pointCut -> uses(pointCut, Args.class));
+            argsChanged = before.stream().anyMatch(pointCut -> uses(pointCut, Args.class));
+            throwing = after.stream().anyMatch(WrappedPointCut::isThrowing);
+
+            stateLocal = local++;
+            proxyMethodLocal = local++;
+            argsLocal = local++;
+            aspectLocal = local++;
+            resultLocal = local;
+            thrownLocal = resultLocal + Math.max(1, Type.getType(returnType).getSize());
+        }
+
+        private void generate() {
+            visitor.visitInvokeDynamicInsn("state", "()I", BOOTSTRAP, slot);
+            visitor.visitVarInsn(Opcodes.ISTORE, stateLocal);
+
+            Label advised = new Label();
+            visitor.visitVarInsn(Opcodes.ILOAD, stateLocal);
+            visitor.visitJumpInsn(Opcodes.IFNE, advised);
+            invokeTarget(false);
+            returnResult();
+            visitor.visitLabel(advised);
+
+            loadProxyMethod();
+            if (!inlined) {
+                invokeProxyMethod();
+                return;
+            }
+
+            Label inlinedAdvices = new Label();
+            visitor.visitVarInsn(Opcodes.ILOAD, stateLocal);
+            pushInt(ProxyMethod.INLINE);
+            visitor.visitJumpInsn(Opcodes.IF_ICMPEQ, inlinedAdvices);
+            invokeProxyMethod();
+            visitor.visitLabel(inlinedAdvices);
+
+            if (collectArgs) {
+                visitor.visitInsn(Opcodes.ACONST_NULL);
+                visitor.visitVarInsn(Opcodes.ASTORE, argsLocal);
+            }
+
+            for (int i = 0; i < before.size(); i++) {
+                callAdvice(i, before.get(i));
+            }
+
+            if (throwing) {
+                invokeTargetCatching();
+            } else {
+                invokeTarget(argsChanged);
+            }
+
+            for (int i = 0; i < after.size(); i++) {
+                callAdvice(before.size() + i, after.get(i));
+            }
+
+            returnResult();
+
+            if (!before.isEmpty() || !after.isEmpty()) {
+                visitor.visitLabel(adviceThrown);
+                visitor.visitMethodInsn(Opcodes.INVOKESTATIC, EXCEPTION_UTILS, "wrapToRuntime",
+                        "(Ljava/lang/Throwable;)Ljava/lang/RuntimeException;", false);
+                visitor.visitInsn(Opcodes.ATHROW);
+            }
+        }
+
+        /**
+         * Calls the real object, and if it throws, runs after advices that bind {@link Thrown} and rethrows.
+         * Otherwise, they get null as the thrown exception
+         */
+        private void invokeTargetCatching() {
+            Label tryStart = new Label();
+            Label tryEnd = new Label();
+            Label handler = new Label();
+            Label returned = new Label();
+
+            visitor.visitInsn(Opcodes.ACONST_NULL);
+            visitor.visitVarInsn(Opcodes.ASTORE, thrownLocal);
+
+            visitor.visitTryCatchBlock(tryStart, tryEnd, handler, "java/lang/Throwable");
+            visitor.visitLabel(tryStart);
+            invokeTarget(argsChanged);
+            visitor.visitLabel(tryEnd);
+            visitor.visitJumpInsn(Opcodes.GOTO, returned);
+
+            visitor.visitLabel(handler);
+            visitor.visitVarInsn(Opcodes.ASTORE, thrownLocal);
+            for (int i = 0; i < after.size(); i++) {
+                if (after.get(i).isThrowing()) {
+                    callAdvice(before.size() + i, after.get(i));
+                }
+            }
+            visitor.visitVarInsn(Opcodes.ALOAD, thrownLocal);
+            visitor.visitInsn(Opcodes.ATHROW);
+
+            visitor.visitLabel(returned);
+        }
+
+        private void loadProxyMethod() {
+            visitor.visitFieldInsn(Opcodes.GETSTATIC, typeName, ProxyClassGenerator.METHODS_FIELD, "[L" + PROXY_METHOD + ";");
+            pushInt(slot);
+            visitor.visitInsn(Opcodes.AALOAD);
+            visitor.visitVarInsn(Opcodes.ASTORE, proxyMethodLocal);
+        }
+
+        /**
+         * Returns the result of the target call, proxied by the proxy method if needed
+         */
+        private void returnResult() {
+            if (proxyResult) {
+                loadProxyMethod();
+                visitor.visitVarInsn(Opcodes.ALOAD, proxyMethodLocal);
+                visitor.visitVarInsn(Opcodes.ALOAD, resultLocal);
+                visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, PROXY_METHOD, "proxyResult", "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+                unbox(returnType);
+                visitor.visitVarInsn(Opcodes.ASTORE, resultLocal);
+            }
+
+            if (returnType == Void.TYPE) {
+                visitor.visitInsn(Opcodes.RETURN);
+            } else {
+                Type type = Type.getType(returnType);
+                visitor.visitVarInsn(type.getOpcode(Opcodes.ILOAD), resultLocal);
+                visitor.visitInsn(type.getOpcode(Opcodes.IRETURN));
+            }
+        }
+
+        /**
+         * Calls the advice chain resolved by the proxy method, it is used when advices are not inlined or aspects
+         * have changed since the proxy class was generated
+         */
+        private void invokeProxyMethod() {
+            visitor.visitVarInsn(Opcodes.ALOAD, proxyMethodLocal);
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitFieldInsn(Opcodes.GETFIELD, typeName, ProxyClassGenerator.TARGET_FIELD, "Ljava/lang/Object;");
+            pushArgs();
+            visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, PROXY_METHOD, "invoke",
+                    "(Ljava/lang/Object;Ljava/lang/Object;[Ljava/lang/Object;)Ljava/lang/Object;", false);
+
+            if (returnType == Void.TYPE) {
+                visitor.visitInsn(Opcodes.POP);
+                visitor.visitInsn(Opcodes.RETURN);
+            } else {
+                unbox(returnType);
+                visitor.visitInsn(Type.getType(returnType).getOpcode(Opcodes.IRETURN));
+            }
+        }
+
+        /**
+         * Pushes new array of boxed arguments of the advised method
+         */
+        private void pushArgs() {
+            pushInt(parameterTypes.length);
+            visitor.visitTypeInsn(Opcodes.ANEWARRAY, OBJECT);
+            for (int i = 0; i < parameterTypes.length; i++) {
+                visitor.visitInsn(Opcodes.DUP);
+                pushInt(i);
+                loadParameter(i);
+                box(parameterTypes[i]);
+                visitor.visitInsn(Opcodes.AASTORE);
+            }
+        }
+
+        /**
+         * @param fromArgs whether arguments are read from the array of arguments, because some before advice
+         *                 could have changed them
+         */
+        private void invokeTarget(boolean fromArgs) {
+            Class<?> declaringClass = method.getDeclaringClass();
+            String owner = Type.getInternalName(declaringClass);
+
+            visitor.visitVarInsn(Opcodes.ALOAD, 0);
+            visitor.visitFieldInsn(Opcodes.GETFIELD, typeName, ProxyClassGenerator.TARGET_FIELD, "Ljava/lang/Object;");
+            visitor.visitTypeInsn(Opcodes.CHECKCAST, owner);
+
+            for (int i = 0; i < parameterTypes.length; i++) {
+                if (fromArgs) {
+                    loadArgument(i);
+                } else {
+                    loadParameter(i);
+                }
+            }
+
+            boolean isInterface = declaringClass.isInterface();
+            visitor.visitMethodInsn(isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL, owner, method.getName(),
+                    Type.getMethodDescriptor(method), isInterface);
+
+            if (returnType != Void.TYPE) {
+                visitor.visitVarInsn(Type.getType(returnType).getOpcode(Opcodes.ISTORE), resultLocal);
+            }
+        }
+
+        private void callAdvice(int index, @NotNull WrappedPointCut pointCut) {
+            Method advice = pointCut.getMethod();
+            String aspectName = Type.getInternalName(advice.getDeclaringClass());
+            Label skip = new Label();
+
+            if (pointCut.isSampled()) {
+                visitor.visitMethodInsn(Opcodes.INVOKESTATIC, "java/util/concurrent/ThreadLocalRandom", "current",
+                        "()Ljava/util/concurrent/ThreadLocalRandom;", false);
+                visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "java/util/concurrent/ThreadLocalRandom", "nextDouble", "()D", false);
+                visitor.visitLdcInsn(pointCut.getSampleRate());
+                visitor.visitInsn(Opcodes.DCMPG);
+                visitor.visitJumpInsn(Opcodes.IFGE, skip);
+            }
+
+            visitor.visitVarInsn(Opcodes.ALOAD, proxyMethodLocal);
+            pushInt(index);
+            visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, PROXY_METHOD, "getAspectInstance", "(I)Ljava/lang/Object;", false);
+            visitor.visitVarInsn(Opcodes.ASTORE, aspectLocal);
+            visitor.visitVarInsn(Opcodes.ALOAD, aspectLocal);
+            visitor.visitJumpInsn(Opcodes.IFNULL, skip);
+
+            if (uses(pointCut, Args.class)) {
+                ensureArgs();
+            }
+
+            visitor.visitVarInsn(Opcodes.ALOAD, aspectLocal);
+            visitor.visitTypeInsn(Opcodes.CHECKCAST, aspectName);
+
+            Class<?>[] adviceParameterTypes = advice.getParameterTypes();
+            Annotation[][] parameterAnnotations = advice.getParameterAnnotations();
+            for (int i = 0; i < adviceParameterTypes.length; i++) {
+                loadBinding(parameterAnnotations[i], adviceParameterTypes[i]);
+            }
+
+            Label callStart = new Label();
+            Label callEnd = new Label();
+            visitor.visitTryCatchBlock(callStart, callEnd, adviceThrown, "java/lang/Throwable");
+            visitor.visitLabel(callStart);
+            visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, aspectName, advice.getName(), Type.getMethodDescriptor(advice), false);
+            visitor.visitLabel(callEnd);
+
+            Class<?> adviceReturnType = advice.getReturnType();
+            if (adviceReturnType != Void.TYPE) {
+                if (returnType == Void.TYPE) {
+                    visitor.visitInsn(Type.getType(adviceReturnType).getSize() == 2 ? Opcodes.POP2 : Opcodes.POP);
+                } else {
+                    convert(adviceReturnType, returnType);
+                    visitor.visitVarInsn(Type.getType(returnType).getOpcode(Opcodes.ISTORE), resultLocal);
+                }
+            }
+
+            visitor.visitLabel(skip);
+        }
+
+        /**
+         * Pushes value of the advice parameter converted to given type
+         */
+        private void loadBinding(@NotNull Annotation @NotNull [] annotations, @NotNull Class<?> type) {
+            for (Annotation annotation : annotations) {
+                if (annotation instanceof This) {
+                    visitor.visitVarInsn(Opcodes.ALOAD, 0);
+                    unbox(type);
+                    return;
+                } else if (annotation instanceof Args) {
+                    visitor.visitVarInsn(Opcodes.ALOAD, argsLocal);
+                    unbox(type);
+                    return;
+                } else if (annotation instanceof Arg arg) {
+                    loadArgument(arg.value());
+                    convert(parameterTypes[arg.value()], type);
+                    return;
+                } else if (annotation instanceof Origin) {
+                    visitor.visitVarInsn(Opcodes.ALOAD, proxyMethodLocal);
+                    visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, PROXY_METHOD, "getMethod", "()Ljava/lang/reflect/Method;", false);
+                    unbox(type);
+                    return;
+                } else if (annotation instanceof Result) {
+                    if (returnType == Void.TYPE) {
+                        visitor.visitInsn(Opcodes.ACONST_NULL);
+                    } else {
+                        visitor.visitVarInsn(Type.getType(returnType).getOpcode(Opcodes.ILOAD), resultLocal);
+                        box(returnType);
+                    }
+                    unbox(type);
+                    return;
+                } else if (annotation instanceof ReturnValue) {
+                    visitor.visitVarInsn(Type.getType(returnType).getOpcode(Opcodes.ILOAD), resultLocal);
+                    convert(returnType, type);
+                    return;
+                } else if (annotation instanceof Thrown) {
+                    visitor.visitVarInsn(Opcodes.ALOAD, thrownLocal);
+                    unbox(type);
+                    return;
+                }
+            }
+
+            throw new IllegalStateException("Cannot resolve argument of advice");
+        }
+
+        /**
+         * Pushes argument of the advised method with given index, it is read from the array of arguments if
+         * some before advice has collected it and could have changed it
+         */
+        private void loadArgument(int index) {
+            if (argsChanged) {
+                Label collected = new Label();
+                Label loaded = new Label();
+                visitor.visitVarInsn(Opcodes.ALOAD, argsLocal);
+                visitor.visitJumpInsn(Opcodes.IFNONNULL, collected);
+                loadParameter(index);
+                visitor.visitJumpInsn(Opcodes.GOTO, loaded);
+                visitor.visitLabel(collected);
+                visitor.visitVarInsn(Opcodes.ALOAD, argsLocal);
+                pushInt(index);
+                visitor.visitInsn(Opcodes.AALOAD);
+                unbox(parameterTypes[index]);
+                visitor.visitLabel(loaded);
+            } else {
+                loadParameter(index);
+            }
+        }
+
+        /**
+         * Collects arguments of the advised method into the array the first time some advice binds them, so calls
+         * where such advices are skipped do not allocate it
+         */
+        private void ensureArgs() {
+            Label collected = new Label();
+            visitor.visitVarInsn(Opcodes.ALOAD, argsLocal);
+            visitor.visitJumpInsn(Opcodes.IFNONNULL, collected);
+            pushArgs();
+            visitor.visitVarInsn(Opcodes.ASTORE, argsLocal);
+            visitor.visitLabel(collected);
+        }
+
+        private void loadParameter(int index) {
+            visitor.visitVarInsn(Type.getType(parameterTypes[index]).getOpcode(Opcodes.ILOAD), parameterLocals[index]);
+        }
+
+        /**
+         * Converts value on the top of the stack from one type to another, values of the same type are left as they are
+         */
+        private void convert(@NotNull Class<?> from, @NotNull Class<?> to) {
+            if (from == to) {
+                return;
+            }
+
+            box(from);
+            unbox(to);
+        }
+
+        /**
+         * Converts primitive value on the top of the stack to its wrapper
+         */
+        private void box(@NotNull Class<?> type) {
+            if (!type.isPrimitive()) {
+                return;
+            }
+
+            Type wrapper = Type.getType(wrap(type));
+            visitor.visitMethodInsn(Opcodes.INVOKESTATIC, wrapper.getInternalName(), "valueOf",
+                    Type.getMethodDescriptor(wrapper, Type.getType(type)), false);
+        }
+
+        /**
+         * Converts {@link Object} on the top of the stack to given type
+         */
+        private void unbox(@NotNull Class<?> type) {
+            if (type == Object.class) {
+                return;
+            }
+
+            if (!type.isPrimitive()) {
+                visitor.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+                return;
+            }
+
+            String wrapper = Type.getInternalName(wrap(type));
+            visitor.visitTypeInsn(Opcodes.CHECKCAST, wrapper);
+            visitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapper, type.getName() + "Value", "()" + Type.getDescriptor(type), false);
+        }
+
+        private void pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                visitor.visitInsn(Opcodes.ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                visitor.visitIntInsn(Opcodes.BIPUSH, value);
+            } else {
+                visitor.visitIntInsn(Opcodes.SIPUSH, value);
+            }
+        }
+    }
+
+    private static boolean uses(@NotNull WrappedPointCut pointCut, @NotNull Class<? extends Annotation> annotationClass) {
+        for (Annotation[] annotations : pointCut.getMethod().getParameterAnnotations()) {
+            for (Annotation annotation : annotations) {
+                if (annotationClass.isInstance(annotation)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    @NotNull
+    private static Class<?> wrap(@NotNull Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+}
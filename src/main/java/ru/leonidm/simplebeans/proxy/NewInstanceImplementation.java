@@ -0,0 +1,58 @@
+package ru.leonidm.simplebeans.proxy;
+
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.scaffold.InstrumentedType;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.ByteCodeAppender;
+import net.bytebuddy.jar.asm.Opcodes;
+import net.bytebuddy.jar.asm.Type;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Body of the static factory method of proxy class that creates proxy instance and stores real object in it.
+ * Interface proxies are created by their own no-arguments constructor, class proxies are allocated by
+ * {@code Unsafe.allocateInstance} stored in static field, so constructors of the proxied classes are never called.
+ * Serialization constructors cannot be used here, because they cannot instantiate hidden classes
+ */
+final class NewInstanceImplementation implements Implementation {
+
+    private final boolean useAllocator;
+
+    NewInstanceImplementation(boolean useAllocator) {
+        this.useAllocator = useAllocator;
+    }
+
+    @Override
+    @NotNull
+    public InstrumentedType prepare(@NotNull InstrumentedType instrumentedType) {
+        return instrumentedType;
+    }
+
+    @Override
+    @NotNull
+    public ByteCodeAppender appender(@NotNull Target implementationTarget) {
+        TypeDescription instrumentedType = implementationTarget.getInstrumentedType();
+        String typeName = instrumentedType.getInternalName();
+
+        return (methodVisitor, implementationContext, instrumentedMethod) -> {
+            if (useAllocator) {
+                methodVisitor.visitFieldInsn(Opcodes.GETSTATIC, typeName, ProxyClassGenerator.ALLOCATOR_FIELD, "Lsun/misc/Unsafe;");
+                methodVisitor.visitLdcInsn(Type.getObjectType(typeName));
+                methodVisitor.visitMethodInsn(Opcodes.INVOKEVIRTUAL, "sun/misc/Unsafe", "allocateInstance",
+                        "(Ljava/lang/Class;)Ljava/lang/Object;", false);
+                methodVisitor.visitTypeInsn(Opcodes.CHECKCAST, typeName);
+            } else {
+                methodVisitor.visitTypeInsn(Opcodes.NEW, typeName);
+                methodVisitor.visitInsn(Opcodes.DUP);
+                methodVisitor.visitMethodInsn(Opcodes.INVOKESPECIAL, typeName, "<init>", "()V", false);
+            }
+
+            methodVisitor.visitInsn(Opcodes.DUP);
+            methodVisitor.visitVarInsn(Opcodes.ALOAD, 0);
+            methodVisitor.visitFieldInsn(Opcodes.PUTFIELD, typeName, ProxyClassGenerator.TARGET_FIELD, "Ljava/lang/Object;");
+            methodVisitor.visitInsn(Opcodes.ARETURN);
+
+            return new ByteCodeAppender.Size(3, instrumentedMethod.getStackSize());
+        };
+    }
+}
@@ -0,0 +1,81 @@
+package ru.leonidm.simplebeans.proxy;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+/**
+ * Accessors of one generated proxy class. They are stored in {@link ClassValue} of the proxy class itself, so they
+ * do not prevent the proxy class from being unloaded
+ */
+final class ProxyClassData {
+
+    private static final ClassValue<ProxyClassData> PROXY_CLASS_DATA = new ClassValue<>() {
+        @Override
+        protected ProxyClassData computeValue(Class<?> proxyClass) {
+            try {
+                return new ProxyClassData(proxyClass);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    private final AspectInvocationHandler invocationHandler;
+    private final MethodHandle factory;
+    private final MethodHandle targetGetter;
+
+    private ProxyClassData(@NotNull Class<?> proxyClass) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(proxyClass, MethodHandles.lookup());
+
+        try {
+            invocationHandler = (AspectInvocationHandler) lookup.findStaticGetter(proxyClass, ProxyClassGenerator.INVOCATION_HANDLER_FIELD,
+                    AspectInvocationHandler.class).invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+
+        factory = lookup.findStatic(proxyClass, ProxyClassGenerator.NEW_INSTANCE_METHOD, MethodType.methodType(Object.class, Object.class));
+        targetGetter = lookup.findGetter(proxyClass, ProxyClassGenerator.TARGET_FIELD, Object.class)
+                .asType(MethodType.methodType(Object.class, Object.class));
+    }
+
+    @NotNull
+    static ProxyClassData of(@NotNull Class<?> proxyClass) {
+        if (!ProxyClass.class.isAssignableFrom(proxyClass)) {
+            throw new IllegalArgumentException("%s is not a proxy class".formatted(proxyClass.getName()));
+        }
+
+        return PROXY_CLASS_DATA.get(proxyClass);
+    }
+
+    @NotNull
+    AspectInvocationHandler getInvocationHandler() {
+        return invocationHandler;
+    }
+
+    @NotNull
+    Class<?> getOriginalClass() {
+        return invocationHandler.getOriginalClass();
+    }
+
+    @NotNull
+    Object newInstance(@NotNull Object realObject) {
+        try {
+            return (Object) factory.invokeExact(realObject);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NotNull
+    Object getRealObject(@NotNull Object proxy) {
+        try {
+            return (Object) targetGetter.invokeExact(proxy);
+        } catch (Throwable e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
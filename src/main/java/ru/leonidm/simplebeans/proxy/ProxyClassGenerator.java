@@ -0,0 +1,319 @@
+package ru.leonidm.simplebeans.proxy;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.NamingStrategy;
+import net.bytebuddy.asm.AsmVisitorWrapper;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.MethodDelegation;
+import net.bytebuddy.implementation.bind.annotation.TargetMethodAnnotationDrivenBinder;
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.bytebuddy.matcher.ElementMatchers;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.logger.LoggerAdapter;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.PointCutType;
+import ru.leonidm.simplebeans.proxy.aspects.WrappedPointCut;
+import sun.misc.Unsafe;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Generates bytecode of proxy classes. Generated classes do not depend on any runtime object, everything they
+ * need is stored in their static fields after they are defined
+ */
+final class ProxyClassGenerator {
+
+    static final String TARGET_FIELD = "target";
+    static final String INVOCATION_HANDLER_FIELD = "invocationHandler";
+    static final String ALLOCATOR_FIELD = "allocator";
+    static final String NEW_INSTANCE_METHOD = "newInstance$proxy";
+    static final String METHODS_FIELD = "methods$proxy";
+
+    private final ApplicationContext context;
+    private final boolean inline;
+
+    /**
+     * @param inline whether advices are called directly from the generated methods
+     */
+    ProxyClassGenerator(@NotNull ApplicationContext context, boolean inline) {
+        this.context = context;
+        this.inline = inline;
+    }
+
+    static boolean canBeProxied(@NotNull Class<?> objectClass) {
+        if (objectClass.isPrimitive() || objectClass.isArray() || objectClass.isAnnotationPresent(Aspect.class)) {
+            return false;
+        }
+
+        if (objectClass.isInterface()) {
+            return true;
+        }
+
+        if (Modifier.isFinal(objectClass.getModifiers())) {
+            return false;
+        }
+
+        Constructor<?>[] constructors = objectClass.getDeclaredConstructors();
+        if (constructors.length != 1) {
+            return false;
+        }
+
+        int constructorModifiers = constructors[0].getModifiers();
+        return Modifier.isPublic(constructorModifiers) || Modifier.isProtected(constructorModifiers);
+    }
+
+    /**
+     * @return unloaded proxy class or null if given class cannot be proxied
+     */
+    @Nullable
+    DynamicType.Unloaded<?> generateClassProxy(@NotNull Class<?> objectClass, @NotNull ProxyClassLayout layout) {
+        if (objectClass.isAnnotationPresent(Aspect.class)) {
+            return null;
+        }
+
+        if (Modifier.isFinal(objectClass.getModifiers())) {
+            LoggerAdapter.get().debug("Cannot proxy {} because it is final class", objectClass.getName());
+            return null;
+        }
+
+        Constructor<?>[] constructors = objectClass.getDeclaredConstructors();
+        if (constructors.length != 1) {
+            LoggerAdapter.get().debug("Cannot proxy {} because it has more than one constructor", objectClass.getName());
+            return null;
+        }
+
+        Constructor<?> constructor = constructors[0];
+        int constructorModifiers = constructor.getModifiers();
+        if (!Modifier.isPublic(constructorModifiers) && !Modifier.isProtected(constructorModifiers)) {
+            LoggerAdapter.get().debug("Cannot proxy {} because it has non-public and non-protected constructor", objectClass.getName());
+            return null;
+        }
+
+        DynamicType.Builder<?> builder = new ByteBuddy()
+                .subclass(objectClass)
+                .implement(ProxyClass.class)
+                .annotateType(objectClass.getAnnotations());
+
+        return generate(builder, getClassMethods(objectClass), layout, true);
+    }
+
+    /**
+     * @param interfaces interfaces sorted by their names
+     */
+    @NotNull
+    DynamicType.Unloaded<?> generateInterfacesProxy(@NotNull List<Class<?>> interfaces, @NotNull ProxyClassLayout layout) {
+        Class<?> mainInterface = interfaces.get(0);
+
+        DynamicType.Builder<?> builder = new ByteBuddy()
+                .with(new NamingStrategy.SuffixingRandom("ByteBuddy",
+                        new NamingStrategy.Suffixing.BaseNameResolver.ForGivenType(TypeDescription.ForLoadedType.of(mainInterface))))
+                .subclass(Object.class)
+                .implement(interfaces)
+                .implement(ProxyClass.class);
+
+        return generate(builder, getInterfacesMethods(interfaces), layout, false);
+    }
+
+    /**
+     * @return methods that may be intercepted by the proxy of given class
+     */
+    @NotNull
+    static Collection<Method> getClassMethods(@NotNull Class<?> objectClass) {
+        Map<String, Method> methods = new LinkedHashMap<>();
+        for (Method method : objectClass.getMethods()) {
+            methods.putIfAbsent(getSignature(method), method);
+        }
+
+        for (Method method : objectClass.getDeclaredMethods()) {
+            methods.putIfAbsent(getSignature(method), method);
+        }
+
+        return methods.values();
+    }
+
+    /**
+     * @return methods that may be intercepted by the proxy of given interfaces
+     */
+    @NotNull
+    static Collection<Method> getInterfacesMethods(@NotNull List<Class<?>> interfaces) {
+        Map<String, Method> methods = new LinkedHashMap<>();
+        for (Class<?> interfaceClass : interfaces) {
+            for (Method method : interfaceClass.getMethods()) {
+                methods.putIfAbsent(getSignature(method), method);
+            }
+        }
+
+        for (String name : List.of("hashCode", "equals", "toString")) {
+            for (Method method : Object.class.getMethods()) {
+                if (method.getName().equals(name)) {
+                    methods.putIfAbsent(getSignature(method), method);
+                }
+            }
+        }
+
+        return methods.values();
+    }
+
+    /**
+     * Resolves advice chains of all intercepted methods, they are called through proxy methods and are never looked
+     * up by the proxy class again. Methods without advices get proxy methods too, so advices registered at runtime
+     * apply to them
+     */
+    @NotNull
+    ProxyClassLayout getLayout(@NotNull Collection<Method> methods) {
+        int pointCutsVersion = context.getPointCutsVersion();
+
+        List<ProxyClassLayout.Slot> slots = new ArrayList<>();
+        methods.stream()
+                .filter(ProxyClassGenerator::isInterceptable)
+                .sorted(Comparator.comparing(ProxyClassGenerator::getSignature))
+                .forEach(method -> {
+                    List<WrappedPointCut> before = context.getPointCuts(method, PointCutType.BEFORE);
+                    List<WrappedPointCut> after = context.getPointCuts(method, PointCutType.AFTER);
+                    List<WrappedPointCut> around = context.getPointCuts(method, PointCutType.AROUND);
+                    boolean advised = !before.isEmpty() || !after.isEmpty() || !around.isEmpty();
+
+                    List<WrappedPointCut> pointCuts = new ArrayList<>(before);
+                    pointCuts.addAll(after);
+                    // Around advices need join point, so they are always called through proxy method
+                    boolean inlined = inline && advised && around.isEmpty() && InlineAdviceImplementation.canInline(method, pointCuts);
+                    slots.add(new ProxyClassLayout.Slot(method, before, after, around, inlined));
+                });
+
+        return new ProxyClassLayout(pointCutsVersion, slots);
+    }
+
+    /**
+     * Proxy class generated for one set of advised methods is valid only for the same set of them and, if advices
+     * are inlined, for the same advices
+     *
+     * @return signatures of advised methods of given layout
+     */
+    @NotNull
+    Set<String> getAdvisedSignatures(@NotNull ProxyClassLayout layout) {
+        return layout.getSlots().stream()
+                .filter(ProxyClassLayout.Slot::isAdvised)
+                .map(slot -> {
+                    if (!slot.isInlined()) {
+                        return getSignature(slot.getMethod());
+                    }
+
+                    return slot.getPointCuts().stream()
+                            .map(pointCut -> pointCut.getMethod().getDeclaringClass().getName() + '#' + getSignature(pointCut.getMethod()))
+                            .collect(Collectors.joining(",", getSignature(slot.getMethod()) + "=", ""));
+                })
+                .collect(Collectors.toSet());
+    }
+
+    /**
+     * Creates proxy methods for the static array of the proxy class, their indexes are the same as were used
+     * when the proxy class was generated
+     */
+    @NotNull
+    ProxyMethod @NotNull [] createProxyMethods(@NotNull AspectInvocationHandler invocationHandler, @NotNull ProxyClassLayout layout) {
+        return layout.getSlots().stream()
+                .map(slot -> new ProxyMethod(invocationHandler, slot.getMethod(), layout.getPointCutsVersion(),
+                        slot.getBefore(), slot.getAfter(), slot.getAround(), slot.isInlined()))
+                .toArray(ProxyMethod[]::new);
+    }
+
+    private static boolean isInterceptable(@NotNull Method method) {
+        int modifiers = method.getModifiers();
+        return !Modifier.isStatic(modifiers) && !method.isBridge() && !Modifier.isFinal(modifiers) && !Modifier.isPrivate(modifiers);
+    }
+
+    @NotNull
+    private DynamicType.Unloaded<?> generate(@NotNull DynamicType.Builder<?> builder, @NotNull Collection<Method> methods,
+                                             @NotNull ProxyClassLayout layout, boolean useAllocator) {
+        builder = builder.defineField(TARGET_FIELD, Object.class, Modifier.PRIVATE)
+                .defineField(INVOCATION_HANDLER_FIELD, AspectInvocationHandler.class, Modifier.PRIVATE | Modifier.STATIC)
+                .defineMethod(NEW_INSTANCE_METHOD, Object.class, Modifier.PUBLIC | Modifier.STATIC)
+                .withParameters(Object.class)
+                .intercept(new NewInstanceImplementation(useAllocator));
+
+        if (useAllocator) {
+            builder = builder.defineField(ALLOCATOR_FIELD, Unsafe.class, Modifier.PRIVATE | Modifier.STATIC);
+        }
+
+        List<ProxyClassLayout.Slot> slots = layout.getSlots();
+        if (!slots.isEmpty()) {
+            builder = builder.defineField(METHODS_FIELD, ProxyMethod[].class, Modifier.PRIVATE | Modifier.STATIC);
+        }
+
+        if (slots.stream().anyMatch(slot -> InlineAdviceImplementation.canGenerate(slot.getMethod()))) {
+            builder = builder.visit(new AsmVisitorWrapper.ForDeclaredMethods().writerFlags(ClassWriter.COMPUTE_FRAMES));
+        }
+
+        for (Method method : methods) {
+            int modifiers = method.getModifiers();
+            if (Modifier.isStatic(modifiers) || method.isBridge()) {
+                continue;
+            }
+
+            if (Modifier.isFinal(modifiers)) {
+                if (method.getDeclaringClass() != Object.class) {
+                    LoggerAdapter.get().debug("Cannot proxy {} because it is final method", method);
+                }
+                continue;
+            }
+
+            if (Modifier.isPrivate(modifiers)) {
+                LoggerAdapter.get().debug("Cannot proxy {} because it is private method", method);
+                continue;
+            }
+
+            builder = builder.method(ElementMatchers.is(method))
+                    .intercept(getImplementation(method, layout))
+                    .annotateMethod(method.getAnnotations());
+        }
+
+        return builder.make();
+    }
+
+    /**
+     * Methods take their proxy method from the static array by the index known at generation time, and public ones
+     * call the real object directly while none of their advices is active
+     */
+    @NotNull
+    private Implementation getImplementation(@NotNull Method method, @NotNull ProxyClassLayout layout) {
+        int index = layout.getSlot(method);
+        ProxyClassLayout.Slot slot = layout.getSlots().get(index);
+        if (InlineAdviceImplementation.canGenerate(method)) {
+            return new InlineAdviceImplementation(index, method, slot.getBefore(), slot.getAfter(), slot.isInlined(),
+                    isResultProxied(method));
+        }
+
+        return MethodDelegation.withDefaultConfiguration()
+                .withBinders(TargetMethodAnnotationDrivenBinder.ParameterBinder.ForFixedValue.OfConstant.of(AdvancedProxy.Slot.class, index))
+                .to(AdvancedProxy.AspectInterceptor.class);
+    }
+
+    private static boolean isResultProxied(@NotNull Method method) {
+        Class<?> returnType = method.getReturnType();
+        return returnType != Void.TYPE && canBeProxied(returnType);
+    }
+
+    @NotNull
+    static String getSignature(@NotNull Method method) {
+        StringBuilder builder = new StringBuilder(method.getName()).append('(');
+        for (Class<?> parameterType : method.getParameterTypes()) {
+            builder.append(parameterType.getName()).append(';');
+        }
+
+        return builder.append(')').append(method.getReturnType().getName()).toString();
+    }
+}
@@ -0,0 +1,117 @@
+package ru.leonidm.simplebeans.proxy;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+import ru.leonidm.simplebeans.proxy.aspects.WrappedPointCut;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Methods of one proxy class, all of them are called through {@link ProxyMethod}s, and advice chains resolved for them.
+ * Layout is resolved once per proxy class, so the generated code and the static array of proxy methods always
+ * agree on slots even if aspects are changed while the proxy class is generated
+ */
+final class ProxyClassLayout {
+
+    private final int pointCutsVersion;
+    private final List<Slot> slots;
+    private final Map<Method, Integer> indexes = new HashMap<>();
+
+    ProxyClassLayout(int pointCutsVersion, @NotNull List<Slot> slots) {
+        this.pointCutsVersion = pointCutsVersion;
+        this.slots = List.copyOf(slots);
+
+        for (int i = 0; i < slots.size(); i++) {
+            indexes.put(slots.get(i).getMethod(), i);
+        }
+    }
+
+    /**
+     * @return version of point cuts advice chains were resolved for
+     */
+    int getPointCutsVersion() {
+        return pointCutsVersion;
+    }
+
+    @NotNull
+    @Unmodifiable
+    List<Slot> getSlots() {
+        return slots;
+    }
+
+    /**
+     * @return index of given method in the static array of proxy methods
+     */
+    int getSlot(@NotNull Method method) {
+        Integer index = indexes.get(method);
+        if (index == null) {
+            throw new IllegalStateException("Method %s is not intercepted".formatted(method));
+        }
+
+        return index;
+    }
+
+    static final class Slot {
+
+        private final Method method;
+        private final List<WrappedPointCut> before;
+        private final List<WrappedPointCut> after;
+        private final List<WrappedPointCut> around;
+        private final boolean inlined;
+
+        /**
+         * @param inlined whether advices are called directly from the generated method
+         */
+        Slot(@NotNull Method method, @NotNull List<WrappedPointCut> before, @NotNull List<WrappedPointCut> after,
+             @NotNull List<WrappedPointCut> around, boolean inlined) {
+            this.method = method;
+            this.before = before;
+            this.after = after;
+            this.around = around;
+            this.inlined = inlined;
+        }
+
+        @NotNull
+        Method getMethod() {
+            return method;
+        }
+
+        @NotNull
+        List<WrappedPointCut> getBefore() {
+            return before;
+        }
+
+        @NotNull
+        List<WrappedPointCut> getAfter() {
+            return after;
+        }
+
+        @NotNull
+        List<WrappedPointCut> getAround() {
+            return around;
+        }
+
+        boolean isInlined() {
+            return inlined;
+        }
+
+        boolean isAdvised() {
+            return !before.isEmpty() || !after.isEmpty() || !around.isEmpty();
+        }
+
+        /**
+         * @return point cuts in order they are called
+         */
+        @NotNull
+        List<WrappedPointCut> getPointCuts() {
+            List<WrappedPointCut> pointCuts = new ArrayList<>(before);
+            pointCuts.addAll(around);
+            pointCuts.addAll(after);
+            return pointCuts;
+        }
+    }
+}
@@ -0,0 +1,435 @@
+package ru.leonidm.simplebeans.proxy;
+
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.loading.MultipleParentClassLoader;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.logger.LoggerAdapter;
+import ru.leonidm.simplebeans.utils.ExceptionUtils;
+import sun.misc.Unsafe;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MutableCallSite;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Collection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Generates and caches proxy classes of one {@link ApplicationContext}. Classes are proxied with subclasses and
+ * interfaces with implementations of them, both of them are built by the same pipeline.
+ * <p>
+ * Proxy classes are defined as hidden classes in the package of the proxied class whenever it is possible, otherwise
+ * each of them gets its own class loader. Caches are {@link ClassValue}s, so proxy classes are released as soon as
+ * the context is closed or the proxied class is unloaded
+ */
+public final class ProxyFactory {
+
+    private static final Unsafe UNSAFE;
+
+    static {
+        try {
+            Field field = Unsafe.class.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            UNSAFE = (Unsafe) field.get(null);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final ApplicationContext context;
+    private final ProxyClassGenerator generator;
+    private final ClassValue<ProxyClassHolder> proxiedClasses = new ClassValue<>() {
+        @Override
+        protected ProxyClassHolder computeValue(Class<?> type) {
+            return new ProxyClassHolder();
+        }
+    };
+    private final ClassValue<ConcurrentMap<Set<Class<?>>, ProxyClassHolder>> proxiedInterfaces = new ClassValue<>() {
+        @Override
+        protected ConcurrentMap<Set<Class<?>>, ProxyClassHolder> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+    private final Set<Class<?>> cachedClasses = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private final Set<ProxyMethod> proxyMethods = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+    private volatile boolean closed = false;
+
+    public ProxyFactory(@NotNull ApplicationContext context) {
+        this.context = context;
+        this.generator = new ProxyClassGenerator(context, context.getProperties()
+                .getProperty("simplebeans.aop.inline", "false").equalsIgnoreCase("true"));
+    }
+
+    /**
+     * Creates proxy instance with the generated static factory method of the proxy class. Proxy instance holds
+     * only the real object, everything else is stored in static fields of the proxy class
+     *
+     * @return proxy of given object or object itself if its class cannot be proxied or the factory is closed
+     */
+    @NotNull
+    public <T> T newProxyInstance(@NotNull T object, @NotNull Class<?> objectClass) {
+        if (closed) {
+            return object;
+        }
+
+        Class<?> proxyClass = getProxyClass(objectClass);
+        if (proxyClass == objectClass) {
+            return object;
+        }
+
+        return (T) ProxyClassData.of(proxyClass).newInstance(object);
+    }
+
+    /**
+     * @return real object of given proxy or null if given object is not a proxy
+     */
+    @Nullable
+    public static Object getRealObject(@NotNull Object proxy) {
+        if (!(proxy instanceof ProxyClass)) {
+            return null;
+        }
+
+        return ProxyClassData.of(proxy.getClass()).getRealObject(proxy);
+    }
+
+    /**
+     * @return proxy class for given class or interface, or given class itself if it cannot be proxied
+     */
+    @NotNull
+    public Class<?> getProxyClass(@NotNull Class<?> objectClass) {
+        if (objectClass.isInterface()) {
+            return getProxyClass(Set.of(objectClass));
+        }
+
+        checkNotClosed();
+
+        return proxiedClasses.get(objectClass).get(() -> {
+            cachedClasses.add(objectClass);
+
+            try {
+                return createClassProxy(objectClass);
+            } catch (Throwable t) {
+                proxiedClasses.remove(objectClass);
+                throw t;
+            }
+        });
+    }
+
+    /**
+     * @return proxy class that implements all given interfaces
+     */
+    @NotNull
+    public Class<?> getProxyClass(@NotNull Set<Class<?>> interfaces) {
+        for (Class<?> interfaceClass : interfaces) {
+            if (!interfaceClass.isInterface()) {
+                throw new IllegalArgumentException("%s is not an interface".formatted(interfaceClass.getName()));
+            }
+        }
+
+        checkNotClosed();
+
+        List<Class<?>> sortedInterfaces = interfaces.stream()
+                .sorted(Comparator.comparing(Class::getName))
+                .toList();
+        Class<?> mainInterface = sortedInterfaces.get(0);
+        Set<Class<?>> key = Set.copyOf(interfaces);
+
+        ConcurrentMap<Set<Class<?>>, ProxyClassHolder> holders = proxiedInterfaces.get(mainInterface);
+        ProxyClassHolder holder = holders.computeIfAbsent(key, k -> new ProxyClassHolder());
+        return holder.get(() -> {
+            cachedClasses.add(mainInterface);
+
+            try {
+                return createInterfacesProxy(sortedInterfaces);
+            } catch (Throwable t) {
+                holders.remove(key, holder);
+                throw t;
+            }
+        });
+    }
+
+    /**
+     * Generates proxy classes for all given classes in parallel, so they are not generated on the first use
+     */
+    public void generateProxyClasses(@NotNull Collection<Class<?>> classes) {
+        classes.parallelStream()
+                .distinct()
+                .filter(ProxyFactory::canBeProxied)
+                .forEach(this::getProxyClass);
+    }
+
+    public static boolean canBeProxied(@NotNull Class<?> objectClass) {
+        return ProxyClassGenerator.canBeProxied(objectClass);
+    }
+
+    /**
+     * Drops all cached proxy classes, so they can be unloaded as soon as there are no instances of them.
+     * Already created proxies keep working, but new ones cannot be created
+     */
+    public void close() {
+        closed = true;
+        invalidate();
+    }
+
+    /**
+     * Drops all cached proxy classes, so new proxies get proxy classes generated for the current advices
+     */
+    public void invalidate() {
+        synchronized (cachedClasses) {
+            for (Class<?> cachedClass : cachedClasses) {
+                proxiedClasses.remove(cachedClass);
+                proxiedInterfaces.remove(cachedClass);
+            }
+
+            cachedClasses.clear();
+        }
+    }
+
+    /**
+     * Links generated methods of all proxies again, it is needed after advices were bound, enabled or disabled,
+     * so methods without active advices skip their proxy methods and other methods stop skipping them
+     */
+    public void relink() {
+        List<MutableCallSite> changed = new ArrayList<>();
+        synchronized (proxyMethods) {
+            for (ProxyMethod proxyMethod : proxyMethods) {
+                if (proxyMethod.relink()) {
+                    changed.add(proxyMethod.getCallSite());
+                }
+            }
+        }
+
+        if (!changed.isEmpty()) {
+            MutableCallSite.syncAll(changed.toArray(MutableCallSite[]::new));
+        }
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    private void checkNotClosed() {
+        if (closed) {
+            throw new IllegalStateException("Proxy factory is already closed");
+        }
+    }
+
+    @NotNull
+    private Class<?> createClassProxy(@NotNull Class<?> objectClass) {
+        List<Class<?>> usedClasses = List.of(objectClass);
+        ProxyClassLayout layout = generator.getLayout(ProxyClassGenerator.getClassMethods(objectClass));
+        Class<?> proxyClass = defineAot(objectClass, usedClasses, layout);
+        if (proxyClass != null) {
+            return proxyClass;
+        }
+
+        DynamicType.Unloaded<?> unloaded = generator.generateClassProxy(objectClass, layout);
+        if (unloaded == null) {
+            return objectClass;
+        }
+
+        LoggerAdapter.get().debug("Creating proxy class for {}", objectClass.getSimpleName());
+
+        proxyClass = define(unloaded, objectClass, usedClasses, layout);
+        LoggerAdapter.get().debug("Created proxy class for {}", objectClass.getSimpleName());
+        return proxyClass;
+    }
+
+    @NotNull
+    private Class<?> createInterfacesProxy(@NotNull List<Class<?>> interfaces) {
+        ProxyClassLayout layout = generator.getLayout(ProxyClassGenerator.getInterfacesMethods(interfaces));
+        Class<?> proxyClass = defineAot(interfaces.get(0), interfaces, layout);
+        if (proxyClass != null) {
+            return proxyClass;
+        }
+
+        LoggerAdapter.get().debug("Creating proxy class for {}", interfaces);
+
+        proxyClass = define(generator.generateInterfacesProxy(interfaces, layout), interfaces.get(0), interfaces, layout);
+        LoggerAdapter.get().debug("Created proxy class for {}", interfaces);
+        return proxyClass;
+    }
+
+    /**
+     * @return proxy class generated at build time or null if there is no suitable one
+     */
+    @Nullable
+    private Class<?> defineAot(@NotNull Class<?> originalClass, @NotNull List<Class<?>> usedClasses, @NotNull ProxyClassLayout layout) {
+        ClassLoader classLoader = originalClass.getClassLoader();
+        if (classLoader == null) {
+            return null;
+        }
+
+        byte[] bytes = AotProxyIndex.load(classLoader, AotProxyIndex.getKey(usedClasses), generator.getAdvisedSignatures(layout));
+        if (bytes == null) {
+            return null;
+        }
+
+        MethodHandles.Lookup lookup = getHiddenClassLookup(originalClass, usedClasses);
+        if (lookup == null) {
+            return null;
+        }
+
+        try {
+            Class<?> proxyClass = lookup.defineHiddenClass(bytes, true).lookupClass();
+            initialize(proxyClass, originalClass, layout);
+            LoggerAdapter.get().debug("Loaded prebuilt proxy class for {}", usedClasses);
+            return proxyClass;
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @NotNull
+    private Class<?> define(@NotNull DynamicType.Unloaded<?> unloaded, @NotNull Class<?> originalClass,
+                            @NotNull List<Class<?>> usedClasses, @NotNull ProxyClassLayout layout) {
+        try (unloaded) {
+            Class<?> proxyClass;
+            MethodHandles.Lookup lookup = canBeHidden(unloaded, originalClass) ? getHiddenClassLookup(originalClass, usedClasses) : null;
+            if (lookup != null) {
+                proxyClass = lookup.defineHiddenClass(unloaded.getBytes(), true).lookupClass();
+            } else {
+                ClassLoader classLoader = new MultipleParentClassLoader.Builder()
+                        .appendMostSpecific(usedClasses)
+                        .appendMostSpecific(ProxyClass.class)
+                        .build();
+
+                proxyClass = unloaded.load(classLoader, ClassLoadingStrategy.Default.WRAPPER).getLoaded();
+            }
+
+            initialize(proxyClass, originalClass, layout);
+            return proxyClass;
+        } catch (IOException | ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void initialize(@NotNull Class<?> proxyClass, @NotNull Class<?> originalClass, @NotNull ProxyClassLayout layout)
+            throws ReflectiveOperationException {
+        AspectInvocationHandler invocationHandler = new AspectInvocationHandler(context, originalClass);
+        setStaticField(proxyClass, ProxyClassGenerator.INVOCATION_HANDLER_FIELD, invocationHandler);
+        if (!originalClass.isInterface()) {
+            setStaticField(proxyClass, ProxyClassGenerator.ALLOCATOR_FIELD, UNSAFE);
+        }
+
+        ProxyMethod[] proxyMethods = generator.createProxyMethods(invocationHandler, layout);
+        if (proxyMethods.length > 0) {
+            // Proxy methods are registered before they are linked, so concurrent relink cannot be missed
+            synchronized (this.proxyMethods) {
+                Collections.addAll(this.proxyMethods, proxyMethods);
+            }
+
+            for (ProxyMethod proxyMethod : proxyMethods) {
+                proxyMethod.relink();
+            }
+
+            setStaticField(proxyClass, ProxyClassGenerator.METHODS_FIELD, proxyMethods);
+        }
+    }
+
+    /**
+     * Hidden class must be in the package of the proxied class and must be self-contained, because only bytes
+     * of it are defined
+     */
+    static boolean canBeHidden(@NotNull DynamicType.Unloaded<?> unloaded, @NotNull Class<?> originalClass) {
+        TypeDescription typeDescription = unloaded.getTypeDescription();
+        return unloaded.getAuxiliaryTypes().isEmpty()
+                && !unloaded.getLoadedTypeInitializers().get(typeDescription).isAlive()
+                && originalClass.getPackageName().equals(typeDescription.getPackage().getName());
+    }
+
+    /**
+     * Hidden class can be defined only if class loader of the proxied class sees everything the proxy class uses
+     *
+     * @return lookup that can define proxy class as hidden class or null if it is impossible
+     */
+    @Nullable
+    private static MethodHandles.Lookup getHiddenClassLookup(@NotNull Class<?> originalClass, @NotNull List<Class<?>> usedClasses) {
+        ClassLoader classLoader = originalClass.getClassLoader();
+        if (classLoader == null) {
+            return null;
+        }
+
+        String packageName = originalClass.getPackageName();
+
+        try {
+            if (Class.forName(ProxyClass.class.getName(), false, classLoader) != ProxyClass.class) {
+                return null;
+            }
+
+            for (Class<?> usedClass : usedClasses) {
+                if (Class.forName(usedClass.getName(), false, classLoader) != usedClass) {
+                    return null;
+                }
+
+                if (!Modifier.isPublic(usedClass.getModifiers()) && !usedClass.getPackageName().equals(packageName)) {
+                    return null;
+                }
+            }
+
+            // Lookup loses full privilege access if the proxied class is in the module of another class loader
+            MethodHandles.Lookup lookup = MethodHandles.privateLookupIn(originalClass, MethodHandles.lookup());
+            return lookup.hasFullPrivilegeAccess() ? lookup : null;
+        } catch (ClassNotFoundException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
+    private static void setStaticField(@NotNull Class<?> proxyClass, @NotNull String name, @NotNull Object value)
+            throws ReflectiveOperationException {
+        Field field = proxyClass.getDeclaredField(name);
+        field.setAccessible(true);
+        field.set(null, value);
+    }
+
+    /**
+     * @return generator of proxy classes for this context
+     */
+    @NotNull
+    ProxyClassGenerator getGenerator() {
+        return generator;
+    }
+
+    /**
+     * Proxy class is generated outside of any lock, so different classes are generated in parallel, and
+     * concurrent requests of the same class wait for the only generation of it
+     */
+    private static final class ProxyClassHolder {
+
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CompletableFuture<Class<?>> future = new CompletableFuture<>();
+
+        @NotNull
+        private Class<?> get(@NotNull Supplier<Class<?>> creator) {
+            if (!future.isDone() && started.compareAndSet(false, true)) {
+                try {
+                    future.complete(creator.get());
+                } catch (Throwable t) {
+                    future.completeExceptionally(t);
+                }
+            }
+
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                throw ExceptionUtils.wrapToRuntime(e.getCause());
+            }
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package ru.leonidm.simplebeans.proxy;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.proxy.aspects.AsyncResults;
+import ru.leonidm.simplebeans.proxy.aspects.JoinPoint;
+import ru.leonidm.simplebeans.proxy.aspects.PointCutType;
+import ru.leonidm.simplebeans.proxy.aspects.WrappedPointCut;
+import ru.leonidm.simplebeans.utils.ExceptionUtils;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.invoke.MutableCallSite;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Intercepted method of one proxy class. Proxy methods are stored in the static array of the proxy class, so
+ * generated code reaches them by index, and each of them holds advice chain of its method, so no point cuts are
+ * looked up on calls. Chain is resolved again only after aspects of the context have changed.
+ * <p>
+ * Generated method asks its proxy method how to handle the call with invokedynamic instruction linked to
+ * {@link #getCallSite() the call site} of the proxy method, whose target is a constant. It is changed only
+ * when advices are bound, enabled, disabled or changed, so in between the JIT folds the check
+ */
+public final class ProxyMethod {
+
+    /**
+     * State of the method without active advices, it calls the real object directly
+     */
+    static final int SKIP = 0;
+    /**
+     * State of the method whose advices are inlined into the generated method and are still actual
+     */
+    static final int INLINE = 1;
+    /**
+     * State of the method that runs its advices through {@link #invoke}
+     */
+    static final int INVOKE = 2;
+
+    private final AspectInvocationHandler invocationHandler;
+    private final ApplicationContext context;
+    private final Method method;
+    private final boolean isAsync;
+    private final Class<?> asyncValueType;
+    private final Method[] inlinedAdvices;
+    private final MutableCallSite callSite = new MutableCallSite(MethodHandles.constant(int.class, INVOKE));
+    private volatile WrappedPointCut[] inlinedPointCuts;
+    private volatile AdviceChain adviceChain;
+    private int state = INVOKE;
+
+    /**
+     * @param inlined whether given advices were inlined into the generated method
+     */
+    ProxyMethod(@NotNull AspectInvocationHandler invocationHandler, @NotNull Method method, int pointCutsVersion,
+                @NotNull List<WrappedPointCut> before, @NotNull List<WrappedPointCut> after,
+                @NotNull List<WrappedPointCut> around, boolean inlined) {
+        this.invocationHandler = invocationHandler;
+        this.context = invocationHandler.getContext();
+        this.method = method;
+        this.isAsync = AsyncResults.isAsync(method);
+        this.asyncValueType = AsyncResults.getValueType(method);
+        this.adviceChain = new AdviceChain(pointCutsVersion, before, after, around);
+
+        this.inlinedPointCuts = inlined ? adviceChain.getPointCuts() : new WrappedPointCut[0];
+        this.inlinedAdvices = inlined ? getAdvices(inlinedPointCuts) : null;
+    }
+
+    /**
+     * Bootstrap method of invokedynamic instructions of generated methods
+     *
+     * @param slot index of the proxy method in the static array of the proxy class
+     */
+    @NotNull
+    public static CallSite bootstrap(@NotNull MethodHandles.Lookup lookup, @NotNull String name, @NotNull MethodType type,
+                                     int slot) {
+        try {
+            ProxyMethod[] proxyMethods = (ProxyMethod[]) lookup.findStaticGetter(lookup.lookupClass(),
+                    ProxyClassGenerator.METHODS_FIELD, ProxyMethod[].class).invokeExact();
+            return proxyMethods[slot].callSite;
+        } catch (Throwable t) {
+            throw ExceptionUtils.wrapToRuntime(t);
+        }
+    }
+
+    @NotNull
+    public Method getMethod() {
+        return method;
+    }
+
+    @NotNull
+    MutableCallSite getCallSite() {
+        return callSite;
+    }
+
+    /**
+     * Chooses state of the generated method for the current advice chain. Inlined advices stay actual as long
+     * as the chain consists of the same advice methods, even if their aspects were registered again
+     *
+     * @return whether target of the call site was changed, then the caller must sync it
+     */
+    synchronized boolean relink() {
+        AdviceChain adviceChain = getAdviceChain();
+
+        int state;
+        if (!adviceChain.isActive()) {
+            state = SKIP;
+        } else if (inlinedAdvices != null && adviceChain.around.length == 0
+                && Arrays.equals(inlinedAdvices, getAdvices(adviceChain.getPointCuts()))) {
+            inlinedPointCuts = adviceChain.getPointCuts();
+            state = INLINE;
+        } else {
+            state = INVOKE;
+        }
+
+        if (this.state == state) {
+            return false;
+        }
+
+        this.state = state;
+        callSite.setTarget(MethodHandles.constant(int.class, state));
+        return true;
+    }
+
+    /**
+     * @return instance of the aspect of the point cut inlined into proxy method or null if it is not active
+     */
+    @Nullable
+    public Object getAspectInstance(int index) {
+        WrappedPointCut pointCut = inlinedPointCuts[index];
+        return pointCut.isActive() ? pointCut.getAspectInstance() : null;
+    }
+
+    /**
+     * Runs advice chain of this method around the call of the real object. Exceptions of before and after advices
+     * are wrapped with {@link ExceptionUtils#wrapToRuntime(Throwable)}, while exceptions of the method itself are
+     * thrown as they are, the same as when it is called without advices
+     */
+    @Nullable
+    public Object invoke(@NotNull Object proxy, @NotNull Object realObject, @Nullable Object @NotNull [] args) throws Throwable {
+        AdviceChain adviceChain = getAdviceChain();
+
+        for (WrappedPointCut wrappedPointCut : adviceChain.before) {
+            if (!wrappedPointCut.isActive()) {
+                continue;
+            }
+
+            wrappedPointCut.run(proxy, method, args, null);
+        }
+
+        Object result;
+        try {
+            if (adviceChain.around.length == 0) {
+                result = invokeMethod(method, realObject, args);
+            } else {
+                result = new JoinPoint(proxy, realObject, method, args, adviceChain.around).proceed();
+            }
+        } catch (Throwable t) {
+            WrappedPointCut.runAfterThrown(adviceChain.after, proxy, method, args, t);
+            throw t;
+        }
+
+        return proxyResult(WrappedPointCut.runAfter(adviceChain.after, proxy, method, args, result));
+    }
+
+    /**
+     * Calls given method reflectively and throws its own exception instead of {@link InvocationTargetException}
+     */
+    @Nullable
+    static Object invokeMethod(@NotNull Method method, @NotNull Object realObject, @Nullable Object @NotNull [] args) throws Throwable {
+        try {
+            return method.invoke(realObject, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Nullable
+    public Object proxyResult(@Nullable Object result) {
+        if (result == null) {
+            return null;
+        }
+
+        // Result of async method is not proxied itself, the value it is completed with is
+        if (isAsync && result instanceof CompletionStage<?> stage) {
+            return asyncValueType == null ? stage : stage.thenApply(value -> {
+                return value == null ? null : AdvancedProxy.proxyIfNeeded(value, asyncValueType, context);
+            });
+        }
+
+        return AdvancedProxy.proxyIfNeeded(result, method.getReturnType(), context);
+    }
+
+    @NotNull
+    private AdviceChain getAdviceChain() {
+        AdviceChain adviceChain = this.adviceChain;
+        int pointCutsVersion = context.getPointCutsVersion();
+        if (adviceChain.version != pointCutsVersion) {
+            adviceChain = new AdviceChain(pointCutsVersion, context.getPointCuts(method, PointCutType.BEFORE),
+                    context.getPointCuts(method, PointCutType.AFTER), context.getPointCuts(method, PointCutType.AROUND));
+            this.adviceChain = adviceChain;
+        }
+
+        return adviceChain;
+    }
+
+    @NotNull
+    private static Method @NotNull [] getAdvices(@NotNull WrappedPointCut @NotNull [] pointCuts) {
+        return Arrays.stream(pointCuts).map(WrappedPointCut::getMethod).toArray(Method[]::new);
+    }
+
+    private static final class AdviceChain {
+
+        private final int version;
+        private final WrappedPointCut[] before;
+        private final List<WrappedPointCut> after;
+        private final WrappedPointCut[] around;
+
+        private AdviceChain(int version, @NotNull List<WrappedPointCut> before, @NotNull List<WrappedPointCut> after,
+                            @NotNull List<WrappedPointCut> around) {
+            this.version = version;
+            this.before = before.toArray(WrappedPointCut[]::new);
+            this.after = List.copyOf(after);
+            this.around = around.toArray(WrappedPointCut[]::new);
+        }
+
+        /**
+         * @return whether any point cut of the chain is active
+         */
+        private boolean isActive() {
+            for (WrappedPointCut pointCut : before) {
+                if (pointCut.isActive()) {
+                    return true;
+                }
+            }
+
+            for (WrappedPointCut pointCut : around) {
+                if (pointCut.isActive()) {
+                    return true;
+                }
+            }
+
+            for (WrappedPointCut pointCut : after) {
+                if (pointCut.isActive()) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        @NotNull
+        private WrappedPointCut @NotNull [] getPointCuts() {
+            WrappedPointCut[] pointCuts = new WrappedPointCut[before.length + after.size()];
+            System.arraycopy(before, 0, pointCuts, 0, before.length);
+            for (int i = 0; i < after.size(); i++) {
+                pointCuts[before.length + i] = after.get(i);
+            }
+
+            return pointCuts;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package ru.leonidm.simplebeans.proxy.aspects;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Arg;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Args;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Origin;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Result;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.ReturnValue;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.This;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Thrown;
+
+import java.lang.annotation.Annotation;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * Binding plan of one advice. Every parameter of the advice is bound to its source once, when the point cut is
+ * created, and the whole plan is compiled into one method handle, so running the advice creates no arrays and
+ * boxes nothing but primitive results
+ */
+final class AdviceInvoker {
+
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object.class,
+            Method.class, Object[].class, Object.class, JoinPoint.class);
+
+    private static final MethodHandle ARRAY_ELEMENT_GETTER = MethodHandles.arrayElementGetter(Object[].class);
+
+    private final Method advice;
+    private final MethodHandle handle;
+
+    private AdviceInvoker(@NotNull Method advice, @NotNull MethodHandle handle) {
+        this.advice = advice;
+        this.handle = handle;
+    }
+
+    @NotNull
+    static AdviceInvoker of(@NotNull Method advice, @NotNull PointCutType pointCutType) {
+        Class<?>[] parameterTypes = advice.getParameterTypes();
+        Annotation[][] parameterAnnotations = advice.getParameterAnnotations();
+        Class<?>[] sourceTypes = new Class<?>[parameterAnnotations.length];
+        int[] reorder = new int[parameterAnnotations.length + 1];
+        Annotation[] bindingAnnotations = new Annotation[parameterAnnotations.length];
+
+        for (int index = 0; index < parameterAnnotations.length; index++) {
+            Annotation annotation = parameterTypes[index] == JoinPoint.class ? null : getParameterAnnotation(parameterAnnotations[index]);
+            Binding binding = annotation == null ? Binding.JOIN_POINT : Binding.of(annotation);
+            if (binding == Binding.JOIN_POINT && pointCutType != PointCutType.AROUND) {
+                throw new IllegalStateException("Only @Around point cut %s can access the join point".formatted(advice));
+            }
+
+            if ((binding == Binding.RESULT || binding == Binding.RETURN_VALUE) && pointCutType != PointCutType.AFTER) {
+                throw new IllegalStateException("Only @After point cut %s can access the result".formatted(advice));
+            }
+
+            if (binding == Binding.THROWN && (pointCutType != PointCutType.AFTER || advice.getReturnType() != Void.TYPE)) {
+                throw new IllegalStateException("Only void @After point cut %s can access the thrown exception".formatted(advice));
+            }
+
+            if (binding == Binding.THROWN && !parameterTypes[index].isAssignableFrom(Throwable.class)) {
+                throw new IllegalStateException("Point cut %s must bind thrown exception to Throwable parameter".formatted(advice));
+            }
+
+            if (annotation instanceof Arg arg && arg.value() < 0) {
+                throw new IllegalStateException("Point cut %s has negative @Arg index".formatted(advice));
+            }
+
+            bindingAnnotations[index] = annotation;
+            sourceTypes[index] = binding == Binding.ARG ? Object.class : binding.type;
+            reorder[index + 1] = binding.position;
+        }
+
+        if (isThrowing(advice) && Arrays.stream(bindingAnnotations).anyMatch(annotation -> annotation instanceof Result
+                || annotation instanceof ReturnValue)) {
+            throw new IllegalStateException("Point cut %s cannot access both the result and the thrown exception".formatted(advice));
+        }
+
+        MethodHandle handle;
+        try {
+            advice.trySetAccessible();
+            handle = MethodHandles.lookup().unreflect(advice);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException("Cannot access point cut %s".formatted(advice), e);
+        }
+
+        handle = handle.asType(MethodType.methodType(Object.class, Object.class, sourceTypes));
+        for (int index = 0; index < bindingAnnotations.length; index++) {
+            if (bindingAnnotations[index] instanceof Arg arg) {
+                handle = MethodHandles.filterArguments(handle, index + 1,
+                        MethodHandles.insertArguments(ARRAY_ELEMENT_GETTER, 1, arg.value()));
+            }
+        }
+
+        return new AdviceInvoker(advice, MethodHandles.permuteArguments(handle, INVOKER_TYPE, reorder));
+    }
+
+    /**
+     * @return whether given advice binds {@link Thrown}, so it is run after the advised method has thrown too
+     */
+    static boolean isThrowing(@NotNull Method advice) {
+        for (Annotation[] annotations : advice.getParameterAnnotations()) {
+            for (Annotation annotation : annotations) {
+                if (annotation instanceof Thrown) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Checks that typed bindings of the advice fit given advised method
+     *
+     * @throws IllegalStateException if they do not fit
+     */
+    void checkBindings(@NotNull Method method) {
+        Class<?>[] adviceParameterTypes = advice.getParameterTypes();
+        Annotation[][] parameterAnnotations = advice.getParameterAnnotations();
+        for (int index = 0; index < adviceParameterTypes.length; index++) {
+            if (adviceParameterTypes[index] == JoinPoint.class) {
+                continue;
+            }
+
+            Annotation annotation = getParameterAnnotation(parameterAnnotations[index]);
+
+            Class<?> sourceType;
+            if (annotation instanceof Arg arg) {
+                if (arg.value() >= method.getParameterCount()) {
+                    throw new IllegalStateException("Point cut %s binds @Arg(%d) of %s that has only %d arguments"
+                            .formatted(advice, arg.value(), method, method.getParameterCount()));
+                }
+
+                sourceType = method.getParameterTypes()[arg.value()];
+            } else if (annotation instanceof ReturnValue) {
+                sourceType = method.getReturnType();
+                if (sourceType == Void.TYPE) {
+                    throw new IllegalStateException("Point cut %s binds @ReturnValue of void method %s".formatted(advice, method));
+                }
+
+                if (AsyncResults.isAsync(method)) {
+                    // Value of async result is checked only if it is known from the declaration
+                    sourceType = AsyncResults.getValueType(method);
+                    if (sourceType == null) {
+                        if (adviceParameterTypes[index].isPrimitive()) {
+                            throw new IllegalStateException("Point cut %s cannot bind async result of %s to primitive parameter"
+                                    .formatted(advice, method));
+                        }
+
+                        continue;
+                    }
+                }
+            } else {
+                continue;
+            }
+
+            if (!canBind(sourceType, adviceParameterTypes[index])) {
+                throw new IllegalStateException("Point cut %s cannot bind %s to parameter of type %s in %s"
+                        .formatted(advice, sourceType.getName(), adviceParameterTypes[index].getName(), method));
+            }
+        }
+    }
+
+    /**
+     * @return whether value of given type can be passed to the parameter of given type, primitives are never widened
+     */
+    static boolean canBind(@NotNull Class<?> sourceType, @NotNull Class<?> parameterType) {
+        if (sourceType == parameterType) {
+            return true;
+        }
+
+        if (parameterType.isPrimitive()) {
+            return false;
+        }
+
+        return parameterType.isAssignableFrom(MethodType.methodType(sourceType).wrap().returnType());
+    }
+
+    @Nullable
+    Object invoke(@NotNull Object aspectInstance, @Nullable Object instance, @NotNull Method method,
+                  @Nullable Object @Nullable [] args, @Nullable Object result, @Nullable JoinPoint joinPoint) throws Throwable {
+        return handle.invokeExact(aspectInstance, instance, method, args, result, joinPoint);
+    }
+
+    @NotNull
+    private static Annotation getParameterAnnotation(@NotNull Annotation @NotNull [] annotations) {
+        Annotation out = null;
+        for (Annotation annotation : annotations) {
+            if (annotation instanceof Args || annotation instanceof Origin || annotation instanceof Result || annotation instanceof This
+                    || annotation instanceof Arg || annotation instanceof ReturnValue || annotation instanceof Thrown) {
+                if (out != null) {
+                    throw new IllegalArgumentException("Cannot resolve argument with two or more annotations");
+                }
+
+                out = annotation;
+            }
+        }
+
+        if (out == null) {
+            throw new IllegalArgumentException("Cannot resolve argument with zero annotations");
+        }
+
+        return out;
+    }
+
+    /**
+     * Source of the advice parameter, position is the index of the parameter of {@link #invoke}
+     */
+    private enum Binding {
+
+        THIS(1, Object.class),
+        ORIGIN(2, Method.class),
+        ARGS(3, Object[].class),
+        ARG(3, Object[].class),
+        RESULT(4, Object.class),
+        RETURN_VALUE(4, Object.class),
+        // Exception is passed instead of the result, so such advice cannot bind both
+        THROWN(4, Object.class),
+        JOIN_POINT(5, JoinPoint.class);
+
+        private final int position;
+        private final Class<?> type;
+
+        Binding(int position, @NotNull Class<?> type) {
+            this.position = position;
+            this.type = type;
+        }
+
+        @NotNull
+        private static Binding of(@NotNull Annotation annotation) {
+            if (annotation instanceof This) {
+                return THIS;
+            } else if (annotation instanceof Origin) {
+                return ORIGIN;
+            } else if (annotation instanceof Args) {
+                return ARGS;
+            } else if (annotation instanceof Arg) {
+                return ARG;
+            } else if (annotation instanceof ReturnValue) {
+                return RETURN_VALUE;
+            } else if (annotation instanceof Thrown) {
+                return THROWN;
+            } else {
+                return RESULT;
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package ru.leonidm.simplebeans.proxy.aspects;
 
 import org.intellij.lang.annotations.Pattern;
 
+import java.lang.annotation.Annotation;
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -11,7 +12,30 @@ import java.lang.annotation.Target;
 @Retention(RetentionPolicy.RUNTIME)
 public @interface After {
 
-    @Pattern(WrappedPointCut.MASK_PATTERN)
-    String value();
+    /**
+     * Mask of advised methods or {@code ${key}} of application property that holds it, the advice is not registered
+     * if such property is not set
+     */
+    @Pattern(WrappedPointCut.ADVICE_MASK_PATTERN)
+    String value() default "";
+
+    /**
+     * Annotation of methods or types whose methods are advised, it is used instead of the mask
+     */
+    Class<? extends Annotation> annotatedWith() default Annotation.class;
+
+    /**
+     * Share of calls the advice is run on, for example, {@code 0.01} runs it on one of a hundred calls chosen randomly.
+     * Skipped calls bind no arguments. Sampled advice must return void
+     */
+    double sample() default 1;
+
+    /**
+     * Whether void advice is run on background workers after the method has returned, so the caller does not wait
+     * for it. Its calls can be dropped if too many are pending
+     *
+     * @see AsyncAdviceDispatcher
+     */
+    boolean async() default false;
 
 }
@@ -0,0 +1,110 @@
+package ru.leonidm.simplebeans.proxy.aspects;
+
+import org.apache.bcel.classfile.JavaClass;
+import org.apache.bcel.generic.ArrayType;
+import org.apache.bcel.generic.Type;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+import ru.leonidm.simplebeans.utils.BcelClassScanner;
+
+import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Methods of annotation-based point cut: methods annotated with the annotation and methods declared in types
+ * annotated with it. They are resolved once from the class scanner, so only explicitly marked methods are advised
+ */
+public final class AnnotatedMethods implements MethodMask {
+
+    private final Class<? extends Annotation> annotationClass;
+    private final Map<String, Set<String>> classToMethodNames = new HashMap<>();
+    private final Set<String> signatures = new HashSet<>();
+
+    private AnnotatedMethods(@NotNull Class<? extends Annotation> annotationClass) {
+        this.annotationClass = annotationClass;
+    }
+
+    /**
+     * @param classFilter filter of binary names of classes whose methods can be advised
+     */
+    @NotNull
+    public static AnnotatedMethods scan(@NotNull BcelClassScanner classScanner, @NotNull Class<? extends Annotation> annotationClass,
+                                        @NotNull Predicate<String> classFilter) {
+        AnnotatedMethods annotatedMethods = new AnnotatedMethods(annotationClass);
+
+        for (BcelClassScanner.WrappedExecutable wrappedMethod : classScanner.getWrappedMethodsAnnotatedWith(annotationClass)) {
+            if (classFilter.test(wrappedMethod.getJavaClass().getClassName())) {
+                annotatedMethods.add(wrappedMethod.getJavaClass(), wrappedMethod.getMethod());
+            }
+        }
+
+        for (JavaClass javaClass : classScanner.getWrappedTypesAnnotatedWith(annotationClass)) {
+            if (!classFilter.test(javaClass.getClassName())) {
+                continue;
+            }
+
+            for (org.apache.bcel.classfile.Method method : javaClass.getMethods()) {
+                if (!method.isStatic() && !method.isSynthetic() && !method.getName().startsWith("<")) {
+                    annotatedMethods.add(javaClass, method);
+                }
+            }
+        }
+
+        return annotatedMethods;
+    }
+
+    @Override
+    public boolean test(@NotNull String className, @NotNull String methodName, @NotNull String @NotNull [] parameterTypes) {
+        Set<String> methodNames = classToMethodNames.get(className);
+        if (methodNames == null || !methodNames.contains(methodName)) {
+            return false;
+        }
+
+        return signatures.contains(getSignature(className, methodName, parameterTypes));
+    }
+
+    @NotNull
+    public Class<? extends Annotation> getAnnotationClass() {
+        return annotationClass;
+    }
+
+    /**
+     * @return binary names of classes that declare advised methods mapped to names of the methods
+     */
+    @NotNull
+    @Unmodifiable
+    public Map<String, Set<String>> getMethodNames() {
+        return Collections.unmodifiableMap(classToMethodNames);
+    }
+
+    private void add(@NotNull JavaClass javaClass, @NotNull org.apache.bcel.classfile.Method method) {
+        Type[] argumentTypes = method.getArgumentTypes();
+        String[] parameterTypes = new String[argumentTypes.length];
+        for (int i = 0; i < argumentTypes.length; i++) {
+            Type argumentType = argumentTypes[i];
+            parameterTypes[i] = argumentType instanceof ArrayType
+                    ? argumentType.getSignature().replace('/', '.')
+                    : argumentType.toString();
+        }
+
+        String className = javaClass.getClassName();
+        classToMethodNames.computeIfAbsent(className, k -> new HashSet<>()).add(method.getName());
+        signatures.add(getSignature(className, method.getName(), parameterTypes));
+    }
+
+    @NotNull
+    private static String getSignature(@NotNull String className, @NotNull String methodName, @NotNull String @NotNull [] parameterTypes) {
+        return className + '#' + methodName + '(' + String.join(",", parameterTypes) + ')';
+    }
+
+    @Override
+    @NotNull
+    public String toString() {
+        return "@" + annotationClass.getName();
+    }
+}
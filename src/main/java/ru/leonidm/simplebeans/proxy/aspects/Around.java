@@ -0,0 +1,33 @@
+package ru.leonidm.simplebeans.proxy.aspects;
+
+import org.intellij.lang.annotations.Pattern;
+
+import java.lang.annotation.Annotation;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Advice that is called instead of the advised method and decides itself whether to call it with
+ * {@link JoinPoint#proceed()}. Its result is used as the result of the method, so it must not be void. Advice that
+ * returns {@link java.util.concurrent.CompletionStage} or {@link java.util.concurrent.CompletableFuture} advises
+ * only methods that return one of them
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Around {
+
+    /**
+     * Mask of advised methods or {@code ${key}} of application property that holds it, the advice is not registered
+     * if such property is not set
+     */
+    @Pattern(WrappedPointCut.ADVICE_MASK_PATTERN)
+    String value() default "";
+
+    /**
+     * Annotation of methods or types whose methods are advised, it is used instead of the mask
+     */
+    Class<? extends Annotation> annotatedWith() default Annotation.class;
+
+}
@@ -0,0 +1,165 @@
+package ru.leonidm.simplebeans.proxy.aspects;
+
+import org.jetbrains.annotations.NotNull;
+import ru.leonidm.simplebeans.applications.ApplicationProperties;
+import ru.leonidm.simplebeans.logger.LoggerAdapter;
+
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs {@link After#async()} advices on background workers. Calls are put into the bounded ring buffer, and when it
+ * is full they are handled by the overflow policy selected by {@code simplebeans.aop.async.overflow} property:
+ * <ul>
+ *     <li>{@code drop} — advice is not run and is counted in {@link #getDroppedCount()}</li>
+ *     <li>{@code block} — caller waits for free space in the buffer</li>
+ *     <li>{@code caller-runs} — advice is run on the caller thread</li>
+ * </ul>
+ */
+public final class AsyncAdviceDispatcher implements AutoCloseable {
+
+    private final BlockingQueue<Runnable> queue;
+    private final OverflowPolicy overflowPolicy;
+    private final LongAdder droppedCount = new LongAdder();
+    private final LongAdder callerRunCount = new LongAdder();
+    private final LongAdder failedCount = new LongAdder();
+    private volatile boolean closed;
+
+    public AsyncAdviceDispatcher(int capacity, int threads, @NotNull OverflowPolicy overflowPolicy) {
+        if (capacity <= 0 || threads <= 0) {
+            throw new IllegalStateException("Async advices need positive capacity and number of threads, got %d and %d"
+                    .formatted(capacity, threads));
+        }
+
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(this::work, "simplebeans-advice-" + (i + 1));
+            worker.setDaemon(true);
+            worker.start();
+        }
+    }
+
+    /**
+     * Creates dispatcher configured by {@code simplebeans.aop.async.capacity}, {@code simplebeans.aop.async.threads}
+     * and {@code simplebeans.aop.async.overflow} properties
+     */
+    @NotNull
+    public static AsyncAdviceDispatcher create(@NotNull ApplicationProperties properties) {
+        String capacity = properties.getProperty("simplebeans.aop.async.capacity", "1024");
+        String threads = properties.getProperty("simplebeans.aop.async.threads", "1");
+        String overflow = properties.getProperty("simplebeans.aop.async.overflow", "drop");
+
+        OverflowPolicy overflowPolicy = switch (overflow.toLowerCase(Locale.ROOT)) {
+            case "drop" -> OverflowPolicy.DROP;
+            case "block" -> OverflowPolicy.BLOCK;
+            case "caller-runs" -> OverflowPolicy.CALLER_RUNS;
+            default -> throw new IllegalStateException("Unknown async advice overflow policy '%s'".formatted(overflow));
+        };
+
+        try {
+            return new AsyncAdviceDispatcher(Integer.parseInt(capacity), Integer.parseInt(threads), overflowPolicy);
+        } catch (NumberFormatException e) {
+            throw new IllegalStateException("Bad async advice capacity '%s' or number of threads '%s'".formatted(capacity, threads), e);
+        }
+    }
+
+    /**
+     * Schedules given advice call, it is run on the caller thread if the dispatcher is closed
+     */
+    public void dispatch(@NotNull Runnable advice) {
+        if (closed) {
+            run(advice);
+            return;
+        }
+
+        if (queue.offer(advice)) {
+            return;
+        }
+
+        switch (overflowPolicy) {
+            case DROP -> droppedCount.increment();
+            case BLOCK -> {
+                try {
+                    queue.put(advice);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    droppedCount.increment();
+                }
+            }
+            case CALLER_RUNS -> {
+                callerRunCount.increment();
+                run(advice);
+            }
+        }
+    }
+
+    /**
+     * @return number of advice calls that were not run because the buffer was full
+     */
+    public long getDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * @return number of advice calls that were run on the caller thread because the buffer was full
+     */
+    public long getCallerRunCount() {
+        return callerRunCount.sum();
+    }
+
+    /**
+     * @return number of advice calls that have thrown exception
+     */
+    public long getFailedCount() {
+        return failedCount.sum();
+    }
+
+    /**
+     * @return number of advice calls waiting in the buffer
+     */
+    public int getQueueSize() {
+        return queue.size();
+    }
+
+    /**
+     * Workers finish advice calls that are already in the buffer and stop, new calls are run on the caller thread
+     */
+    @Override
+    public void close() {
+        closed = true;
+    }
+
+    private void work() {
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Runnable advice = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (advice != null) {
+                    run(advice);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void run(@NotNull Runnable advice) {
+        try {
+            advice.run();
+        } catch (Throwable t) {
+            failedCount.increment();
+            LoggerAdapter.get().warn("Async advice has thrown {}", t);
+        }
+    }
+
+    public enum OverflowPolicy {
+
+        DROP,
+        BLOCK,
+        CALLER_RUNS
+
+    }
+}
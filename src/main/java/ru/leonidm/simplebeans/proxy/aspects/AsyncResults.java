@@ -0,0 +1,44 @@
+package ru.leonidm.simplebeans.proxy.aspects;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+/**
+ * Methods that return {@link CompletableFuture} or {@link CompletionStage} are completed when their result is
+ * completed, not when they return. Advices of such methods are chained onto the result instead of getting it
+ */
+public final class AsyncResults {
+
+    private AsyncResults() {
+
+    }
+
+    public static boolean isAsync(@NotNull Method method) {
+        Class<?> returnType = method.getReturnType();
+        return returnType == CompletableFuture.class || returnType == CompletionStage.class;
+    }
+
+    /**
+     * @return class of the value the result of async method is completed with, or null if it is not known
+     * from the declaration, for example, if it is a type variable
+     */
+    @Nullable
+    public static Class<?> getValueType(@NotNull Method method) {
+        if (!isAsync(method) || !(method.getGenericReturnType() instanceof ParameterizedType parameterizedType)) {
+            return null;
+        }
+
+        Type valueType = parameterizedType.getActualTypeArguments()[0];
+        if (valueType instanceof ParameterizedType parameterizedValueType) {
+            valueType = parameterizedValueType.getRawType();
+        }
+
+        return valueType instanceof Class<?> valueClass ? valueClass : null;
+    }
+}
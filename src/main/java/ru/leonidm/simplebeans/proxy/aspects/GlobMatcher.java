@@ -0,0 +1,182 @@
+package ru.leonidm.simplebeans.proxy.aspects;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Matcher of one part of the point cut mask, where {@code **} matches any symbols and {@code *} matches any symbols
+ * except dots. Glob is split by {@code **} into parts and every part by {@code *} into literal chunks, then parts and
+ * chunks are placed at their earliest positions, so matching never backtracks and allocates nothing
+ */
+final class GlobMatcher {
+
+    private final String[][] parts;
+    private final int minWildcardLength;
+
+    private GlobMatcher(@NotNull String[][] parts, int minWildcardLength) {
+        this.parts = parts;
+        this.minWildcardLength = minWildcardLength;
+    }
+
+    /**
+     * @param nonEmptyWildcards whether wildcards must match at least one symbol
+     */
+    @NotNull
+    static GlobMatcher compile(@NotNull String glob, boolean nonEmptyWildcards) {
+        List<String[]> parts = new ArrayList<>();
+        List<String> chunks = new ArrayList<>();
+        StringBuilder chunk = new StringBuilder();
+
+        int index = 0;
+        while (index < glob.length()) {
+            char chr = glob.charAt(index);
+            if (chr != '*') {
+                chunk.append(chr);
+                index++;
+                continue;
+            }
+
+            int stars = 0;
+            while (index < glob.length() && glob.charAt(index) == '*') {
+                stars++;
+                index++;
+            }
+
+            chunks.add(chunk.toString());
+            chunk.setLength(0);
+
+            if (stars > 1) {
+                parts.add(chunks.toArray(String[]::new));
+                chunks.clear();
+            }
+        }
+
+        chunks.add(chunk.toString());
+        parts.add(chunks.toArray(String[]::new));
+
+        return new GlobMatcher(parts.toArray(String[][]::new), nonEmptyWildcards ? 1 : 0);
+    }
+
+    boolean matches(@NotNull String text) {
+        int length = text.length();
+        if (parts.length == 1) {
+            return matchesExactly(parts[0], text, 0, length);
+        }
+
+        int position = matchPrefix(parts[0], text, 0, length);
+        if (position < 0) {
+            return false;
+        }
+
+        for (int i = 1; i < parts.length - 1; i++) {
+            position = findEarliestEnd(parts[i], text, position + minWildcardLength, length);
+            if (position < 0) {
+                return false;
+            }
+        }
+
+        String[] lastPart = parts[parts.length - 1];
+        for (int start = position + minWildcardLength; start <= length; start++) {
+            if (matchesExactly(lastPart, text, start, length)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the earliest end of the part that starts at given position or -1 if there is no such
+     */
+    private int matchPrefix(@NotNull String @NotNull [] chunks, @NotNull String text, int start, int limit) {
+        String first = chunks[0];
+        if (!text.startsWith(first, start) || start + first.length() > limit) {
+            return -1;
+        }
+
+        int position = start + first.length();
+        for (int i = 1; i < chunks.length; i++) {
+            position = placeChunk(chunks[i], text, position, limit);
+            if (position < 0) {
+                return -1;
+            }
+        }
+
+        return position;
+    }
+
+    /**
+     * @return the earliest end of the part that starts at given position or later, or -1 if there is no such
+     */
+    private int findEarliestEnd(@NotNull String @NotNull [] chunks, @NotNull String text, int from, int limit) {
+        for (int start = from; start <= limit; start++) {
+            int end = matchPrefix(chunks, text, start, limit);
+            if (end >= 0) {
+                return end;
+            }
+        }
+
+        return -1;
+    }
+
+    private boolean matchesExactly(@NotNull String @NotNull [] chunks, @NotNull String text, int start, int end) {
+        if (chunks.length == 1) {
+            String chunk = chunks[0];
+            return end - start == chunk.length() && text.startsWith(chunk, start);
+        }
+
+        String last = chunks[chunks.length - 1];
+        int lastStart = end - last.length();
+        if (lastStart < start || !text.startsWith(last, lastStart)) {
+            return false;
+        }
+
+        String first = chunks[0];
+        if (!text.startsWith(first, start)) {
+            return false;
+        }
+
+        int position = start + first.length();
+        for (int i = 1; i < chunks.length - 1; i++) {
+            position = placeChunk(chunks[i], text, position, lastStart);
+            if (position < 0) {
+                return false;
+            }
+        }
+
+        return isWildcard(text, position, lastStart);
+    }
+
+    /**
+     * Places chunk after the wildcard that starts at given position
+     *
+     * @return end of the placed chunk or -1 if it cannot be placed before given limit
+     */
+    private int placeChunk(@NotNull String chunk, @NotNull String text, int position, int limit) {
+        int chunkStart = text.indexOf(chunk, position + minWildcardLength);
+        if (chunkStart < 0 || chunkStart + chunk.length() > limit || !isWildcard(text, position, chunkStart)) {
+            return -1;
+        }
+
+        return chunkStart + chunk.length();
+    }
+
+    /**
+     * @return whether {@code *} can match given range of the text
+     */
+    private boolean isWildcard(@NotNull String text, int start, int end) {
+        if (end - start < minWildcardLength) {
+            return false;
+        }
+
+        for (int i = start; i < end; i++) {
+            if (text.charAt(i) == '.') {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
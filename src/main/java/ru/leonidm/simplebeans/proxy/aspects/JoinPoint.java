@@ -0,0 +1,118 @@
+package ru.leonidm.simplebeans.proxy.aspects;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+/**
+ * Call of the advised method passed to {@link Around} advices. One join point is created per call and is shared
+ * by all around advices of the method, {@link #proceed()} calls the next of them or the method itself
+ */
+public final class JoinPoint {
+
+    private final Object instance;
+    private final Object realObject;
+    private final Method method;
+    private final WrappedPointCut[] around;
+    private Object[] args;
+    private int position;
+
+    /**
+     * @param instance   proxy or woven instance that was called
+     * @param realObject object the method is called on when all around advices have proceeded
+     * @param around     around advices in order they are called
+     */
+    public JoinPoint(@Nullable Object instance, @Nullable Object realObject, @NotNull Method method,
+                     @Nullable Object @NotNull [] args, @NotNull WrappedPointCut @NotNull [] around) {
+        this.instance = instance;
+        this.realObject = realObject;
+        this.method = method;
+        this.args = args;
+        this.around = around;
+    }
+
+    @Nullable
+    public Object getThis() {
+        return instance;
+    }
+
+    /**
+     * @return real object the method is called on, calls of its methods are not advised
+     */
+    @Nullable
+    public Object getTarget() {
+        return realObject;
+    }
+
+    @NotNull
+    public Method getMethod() {
+        return method;
+    }
+
+    @Nullable
+    public Object @NotNull [] getArgs() {
+        return args;
+    }
+
+    /**
+     * Calls the next around advice or, if there is none, the advised method itself. It can be called several times
+     * or not called at all, then the advised method is skipped
+     *
+     * @return result of the call, boxed if the method returns primitive
+     * @throws Throwable exception thrown by the method or by the next advice
+     */
+    @Nullable
+    public Object proceed() throws Throwable {
+        int position = this.position;
+        while (position < around.length && !around[position].isActive()) {
+            position++;
+        }
+
+        if (position == around.length) {
+            try {
+                return method.invoke(realObject, args);
+            } catch (InvocationTargetException e) {
+                throw e.getCause();
+            }
+        }
+
+        this.position = position + 1;
+        try {
+            return around[position].runAround(instance, method, args, this);
+        } finally {
+            this.position = position;
+        }
+    }
+
+    /**
+     * Join point is shared by the chain of around advices, so it can proceed only while the advice is running. Detached
+     * join point proceeds with the rest of the chain independently, for example, after the advice has returned or
+     * in another thread
+     */
+    @NotNull
+    public JoinPoint detach() {
+        JoinPoint joinPoint = new JoinPoint(instance, realObject, method, args, around);
+        joinPoint.position = position;
+        return joinPoint;
+    }
+
+    /**
+     * Same as {@link #proceed()}, but the rest of the chain gets given arguments
+     */
+    @Nullable
+    public Object proceed(@Nullable Object @NotNull [] args) throws Throwable {
+        if (args.length != method.getParameterCount()) {
+            throw new IllegalArgumentException("Method %s takes %d arguments, got %d".formatted(method, method.getParameterCount(), args.length));
+        }
+
+        Object[] previousArgs = this.args;
+        this.args = args;
+        try {
+            return proceed();
+        } finally {
+            this.args = previousArgs;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.leonidm.simplebeans.proxy.aspects;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.reflect.Method;
+
+/**
+ * Compiled mask of point cut. Methods are matched by names only, so methods of classes that are not loaded yet
+ * can be matched too
+ */
+@FunctionalInterface
+public interface MethodMask {
+
+    /**
+     * @param className      binary name of the class that declares method
+     * @param parameterTypes binary names of types of parameters
+     */
+    boolean test(@NotNull String className, @NotNull String methodName, @NotNull String @NotNull [] parameterTypes);
+
+    default boolean test(@NotNull Method method) {
+        Class<?>[] parameterClasses = method.getParameterTypes();
+        String[] parameterTypes = new String[parameterClasses.length];
+        for (int i = 0; i < parameterClasses.length; i++) {
+            parameterTypes[i] = parameterClasses[i].getName();
+        }
+
+        return test(method.getDeclaringClass().getName(), method.getName(), parameterTypes);
+    }
+}
@@ -0,0 +1,187 @@
+package ru.leonidm.simplebeans.proxy.aspects;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Unmodifiable;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.regex.Matcher;
+
+/**
+ * Immutable index of point cuts by their masks. Class masks are split by dots into a trie of packages, and every
+ * point cut is stored in the node of the longest prefix of its class mask that has no wildcards, grouped by its
+ * method name if it has no wildcards too. So matching a method visits only nodes of its packages and buckets of its
+ * name, and only point cuts found there are checked against their full masks. Annotation-based point cuts are
+ * stored in nodes of classes of their methods
+ */
+public final class PointCutIndex {
+
+    private static final PointCutIndex EMPTY = new PointCutIndex(List.of());
+
+    private final Node root = new Node();
+
+    private PointCutIndex(@NotNull Collection<WrappedPointCut> pointCuts) {
+        int order = 0;
+        for (WrappedPointCut pointCut : pointCuts) {
+            add(new Entry(order++, pointCut));
+        }
+    }
+
+    /**
+     * @param pointCuts point cuts in order they are returned by {@link #find}
+     */
+    @NotNull
+    public static PointCutIndex of(@NotNull Collection<WrappedPointCut> pointCuts) {
+        return pointCuts.isEmpty() ? EMPTY : new PointCutIndex(pointCuts);
+    }
+
+    @NotNull
+    @Unmodifiable
+    public List<WrappedPointCut> find(@NotNull Method method) {
+        Class<?>[] parameterClasses = method.getParameterTypes();
+        String[] parameterTypes = new String[parameterClasses.length];
+        for (int i = 0; i < parameterClasses.length; i++) {
+            parameterTypes[i] = parameterClasses[i].getName();
+        }
+
+        return find(method.getDeclaringClass().getName(), method.getName(), parameterTypes);
+    }
+
+    /**
+     * @return point cuts whose masks fit given method, in order they were indexed
+     */
+    @NotNull
+    @Unmodifiable
+    public List<WrappedPointCut> find(@NotNull String className, @NotNull String methodName, @NotNull String @NotNull [] parameterTypes) {
+        List<Entry> candidates = new ArrayList<>();
+
+        Node node = root;
+        node.wildcard.collect(methodName, candidates);
+
+        int start = 0;
+        while (node != null && start <= className.length()) {
+            int end = className.indexOf('.', start);
+            if (end < 0) {
+                end = className.length();
+            }
+
+            node = node.children.get(className.substring(start, end));
+            if (node != null) {
+                node.wildcard.collect(methodName, candidates);
+                if (end == className.length()) {
+                    node.exact.collect(methodName, candidates);
+                }
+            }
+
+            start = end + 1;
+        }
+
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+
+        candidates.sort(Comparator.comparingInt(entry -> entry.order));
+
+        List<WrappedPointCut> pointCuts = new ArrayList<>(candidates.size());
+        for (Entry candidate : candidates) {
+            if (candidate.pointCut.doesFitMask(className, methodName, parameterTypes)) {
+                pointCuts.add(candidate.pointCut);
+            }
+        }
+
+        return List.copyOf(pointCuts);
+    }
+
+    private void add(@NotNull Entry entry) {
+        AnnotatedMethods annotatedMethods = entry.pointCut.getAnnotatedMethods();
+        if (annotatedMethods != null) {
+            annotatedMethods.getMethodNames().forEach((className, methodNames) -> {
+                Node node = root;
+                for (String segment : className.split("\\.")) {
+                    node = node.children.computeIfAbsent(segment, k -> new Node());
+                }
+
+                for (String methodName : methodNames) {
+                    node.exact.add(methodName, entry);
+                }
+            });
+            return;
+        }
+
+        String mask = Objects.requireNonNull(entry.pointCut.getMask());
+        Matcher matcher = WrappedPointCut.COMPILED_MASK_PATTERN.matcher(mask);
+        if (!matcher.matches()) {
+            throw new IllegalStateException("Got bad mask '%s'".formatted(mask));
+        }
+
+        String classMask = matcher.group(1);
+        String methodNameMask = matcher.group(2);
+
+        Node node = root;
+        for (String segment : classMask.isEmpty() ? new String[0] : classMask.substring(0, classMask.length() - 1).split("\\.")) {
+            if (segment.indexOf('*') >= 0) {
+                node.wildcard.add(methodNameMask, entry);
+                return;
+            }
+
+            node = node.children.computeIfAbsent(segment, k -> new Node());
+        }
+
+        // Mask without class part fits any class
+        (node == root ? node.wildcard : node.exact).add(methodNameMask, entry);
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new HashMap<>();
+        /**
+         * Point cuts whose class masks end in this node
+         */
+        private final Bucket exact = new Bucket();
+        /**
+         * Point cuts whose class masks continue with wildcards after this node
+         */
+        private final Bucket wildcard = new Bucket();
+
+    }
+
+    private static final class Bucket {
+
+        private final Map<String, List<Entry>> byMethodName = new HashMap<>();
+        private final List<Entry> anyMethodName = new ArrayList<>();
+
+        private void add(@NotNull String methodNameMask, @NotNull Entry entry) {
+            if (methodNameMask.indexOf('*') >= 0) {
+                anyMethodName.add(entry);
+            } else {
+                byMethodName.computeIfAbsent(methodNameMask, k -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        private void collect(@NotNull String methodName, @NotNull List<Entry> candidates) {
+            candidates.addAll(anyMethodName);
+
+            List<Entry> entries = byMethodName.get(methodName);
+            if (entries != null) {
+                candidates.addAll(entries);
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final int order;
+        private final WrappedPointCut pointCut;
+
+        private Entry(int order, @NotNull WrappedPointCut pointCut) {
+            this.order = order;
+            this.pointCut = pointCut;
+        }
+    }
+}
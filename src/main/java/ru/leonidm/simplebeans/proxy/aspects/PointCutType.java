@@ -3,6 +3,7 @@ package ru.leonidm.simplebeans.proxy.aspects;
 public enum PointCutType {
 
     BEFORE,
-    AFTER
+    AFTER,
+    AROUND
 
 }
@@ -3,16 +3,15 @@ package ru.leonidm.simplebeans.proxy.aspects;
 import org.intellij.lang.annotations.Language;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
-import ru.leonidm.simplebeans.proxy.aspects.arguments.Args;
-import ru.leonidm.simplebeans.proxy.aspects.arguments.Origin;
-import ru.leonidm.simplebeans.proxy.aspects.arguments.Result;
-import ru.leonidm.simplebeans.proxy.aspects.arguments.This;
 import ru.leonidm.simplebeans.utils.ExceptionUtils;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
-import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -21,146 +20,108 @@ public final class WrappedPointCut {
     @Language("RegExp")
     public static final String MASK_PATTERN = "^((?:[\\w*]+\\.|)+)([\\w*]+)(\\((((?:[\\w.*]+,\\s*)*[\\w.*]+)|\\*|\\.\\.\\.|)\\)|)$";
     public static final Pattern COMPILED_MASK_PATTERN = Pattern.compile(MASK_PATTERN);
+    public static final String PROPERTY_MASK_PATTERN = "^\\$\\{([\\w.-]+)}$";
+    public static final Pattern COMPILED_PROPERTY_MASK_PATTERN = Pattern.compile(PROPERTY_MASK_PATTERN);
+    /**
+     * Value of advice annotation: mask or {@code ${key}} of application property that holds the mask
+     */
+    public static final String ADVICE_MASK_PATTERN = MASK_PATTERN + "|" + PROPERTY_MASK_PATTERN;
 
     private static final Pattern ARGUMENTS_SEPARATOR = Pattern.compile(",\\s*");
 
-    private final PointCutHandler pointCutHandler;
-    private final Predicate<Method> methodPredicate;
+    private final Method pointCut;
+    private final AdviceInvoker adviceInvoker;
+    private final String mask;
+    private final AnnotatedMethods annotatedMethods;
+    private final MethodMask methodMask;
     private final PointCutType pointCutType;
     private final boolean isVoid;
-
-    private WrappedPointCut(@NotNull PointCutHandler pointCutHandler, @NotNull Predicate<Method> methodPredicate,
+    private final boolean isThrowing;
+    private volatile Object aspectInstance;
+    private volatile Supplier<AsyncAdviceDispatcher> dispatcher;
+    private volatile double sampleRate = 1;
+    private volatile boolean enabled = true;
+
+    private WrappedPointCut(@NotNull Method pointCut, @NotNull AdviceInvoker adviceInvoker, @Nullable String mask,
+                            @Nullable AnnotatedMethods annotatedMethods, @NotNull MethodMask methodMask,
                             @NotNull PointCutType pointCutType, boolean isVoid) {
-        this.pointCutHandler = pointCutHandler;
-        this.methodPredicate = methodPredicate;
+        this.pointCut = pointCut;
+        this.adviceInvoker = adviceInvoker;
+        this.mask = mask;
+        this.annotatedMethods = annotatedMethods;
+        this.methodMask = methodMask;
         this.pointCutType = pointCutType;
         this.isVoid = isVoid;
+        this.isThrowing = AdviceInvoker.isThrowing(pointCut);
     }
 
+    /**
+     * Creates point cut that is not bound to the aspect instance yet, so it can be matched against methods before
+     * the aspect is initialized. It is skipped by proxies until {@link #bind(Object)} is called
+     */
     @NotNull
-    public static WrappedPointCut of(@NotNull Object aspectInstance, @NotNull Method pointCut, @NotNull String mask,
-                                     @NotNull PointCutType pointCutType) {
-        PointCutHandler[] arguments = new PointCutHandler[pointCut.getParameterCount()];
-
-        Annotation[][] parameterAnnotations = pointCut.getParameterAnnotations();
-        for (int index = 0; index < parameterAnnotations.length; index++) {
-            Annotation[] annotations = parameterAnnotations[index];
-            Annotation annotation = getParameterAnnotation(annotations);
-
-            if (annotation instanceof Args) {
-                arguments[index] = (instance, method, args, result) -> args;
-            } else if (annotation instanceof Origin) {
-                arguments[index] = (instance, method, args, result) -> method;
-            } else if (annotation instanceof Result) {
-                if (pointCutType == PointCutType.BEFORE) {
-                    throw new IllegalStateException("@Before point cut %s cannot access the result".formatted(pointCut));
-                }
-
-                arguments[index] = (instance, method, args, result) -> result;
-            } else if (annotation instanceof This) {
-                arguments[index] = (instance, method, args, result) -> instance;
-            }
-        }
-
-        return new WrappedPointCut((instance, method, args, result) -> {
-            try {
-                Object[] finalArgs = Arrays.stream(arguments).map(arg -> arg.handle(instance, method, args, result)).toArray();
-                return pointCut.invoke(aspectInstance, finalArgs);
-            } catch (Exception e) {
-                throw ExceptionUtils.wrapToRuntime(e);
-            }
-        }, buildMask(mask), pointCutType, pointCut.getReturnType() == Void.TYPE);
+    public static WrappedPointCut of(@NotNull Method pointCut, @NotNull String mask, @NotNull PointCutType pointCutType) {
+        return of(pointCut, mask, null, buildMethodMask(mask), pointCutType);
     }
 
+    /**
+     * Same as {@link #of(Method, String, PointCutType)}, but point cut advises only given annotated methods
+     */
     @NotNull
-    private static Annotation getParameterAnnotation(@NotNull Annotation @NotNull [] annotations) {
-        Annotation out = null;
-        for (Annotation annotation : annotations) {
-            if (annotation instanceof Args || annotation instanceof Origin || annotation instanceof Result || annotation instanceof This) {
-                if (out != null) {
-                    throw new IllegalArgumentException("Cannot resolve argument with two or more annotations");
-                }
-
-                out = annotation;
-            }
-        }
-
-        if (out == null) {
-            throw new IllegalArgumentException("Cannot resolve argument with zero annotations");
-        }
+    public static WrappedPointCut of(@NotNull Method pointCut, @NotNull AnnotatedMethods annotatedMethods,
+                                     @NotNull PointCutType pointCutType) {
+        return of(pointCut, null, annotatedMethods, annotatedMethods, pointCutType);
+    }
 
-        return out;
+    @NotNull
+    private static WrappedPointCut of(@NotNull Method pointCut, @Nullable String mask, @Nullable AnnotatedMethods annotatedMethods,
+                                      @NotNull MethodMask methodMask, @NotNull PointCutType pointCutType) {
+        return new WrappedPointCut(pointCut, AdviceInvoker.of(pointCut, pointCutType), mask, annotatedMethods, methodMask,
+                pointCutType, pointCut.getReturnType() == Void.TYPE);
     }
 
     @NotNull
     public static Predicate<Method> buildMask(@NotNull String mask) {
+        return buildMethodMask(mask)::test;
+    }
+
+    /**
+     * Compiles given mask into {@link GlobMatcher}s, so matching uses no regular expressions
+     */
+    @NotNull
+    public static MethodMask buildMethodMask(@NotNull String mask) {
         Matcher matcher = COMPILED_MASK_PATTERN.matcher(mask);
         if (!matcher.matches()) {
             throw new IllegalStateException("Got bad mask '%s'".formatted(mask));
         }
 
-        String rawClassMask = matcher.group(1);
-        if (rawClassMask.endsWith(".")) {
-            rawClassMask = rawClassMask.substring(0, rawClassMask.length() - 1);
+        String classMask = matcher.group(1);
+        if (classMask.endsWith(".")) {
+            classMask = classMask.substring(0, classMask.length() - 1);
         }
 
-        StringBuilder classMaskBuilder = new StringBuilder(rawClassMask.length());
-        boolean isPreviousStar = false;
-        for (char chr : rawClassMask.toCharArray()) {
-            if (isPreviousStar) {
-                if (chr == '*') {
-                    classMaskBuilder.append(".*");
-                } else {
-                    classMaskBuilder.append("[^\\.]*");
-                }
-
-                isPreviousStar = false;
-            } else if (chr == '*') {
-                isPreviousStar = true;
-            } else if (chr == '.') {
-                classMaskBuilder.append("\\.");
-            } else {
-                classMaskBuilder.append(chr);
-            }
-        }
-
-        String classMask = classMaskBuilder.toString();
-
-        String methodNameMask = matcher.group(2).replace("*", "[^\\.]*");
-        String argumentsMask;
-
-        argumentsMask = switch (matcher.groupCount()) {
-            case 2 -> "*";
-            case 3 -> "";
-            case 5 -> matcher.group(5);
-            default -> {
-                throw new IllegalStateException("Got bad mask '%s'".formatted(mask));
-            }
-        };
+        String argumentsMask = matcher.group(5);
 
-        Predicate<Method> argumentsPredicate;
+        Predicate<String[]> argumentsPredicate;
 
         if (argumentsMask == null || argumentsMask.equals("*") || argumentsMask.equals("...")) {
-            argumentsPredicate = (method) -> true;
+            argumentsPredicate = (parameters) -> true;
         } else if (argumentsMask.isEmpty()) {
-            argumentsPredicate = (method) -> method.getParameterCount() == 0;
+            argumentsPredicate = (parameters) -> parameters.length == 0;
         } else {
             String[] arguments = ARGUMENTS_SEPARATOR.split(argumentsMask);
-            Pattern[] compiledArguments = new Pattern[arguments.length];
+            GlobMatcher[] compiledArguments = new GlobMatcher[arguments.length];
             for (int i = 0; i < arguments.length; i++) {
-                compiledArguments[i] = Pattern.compile(
-                        "^" + arguments[i].replace("**", ".+").replace("*", "[^\\.]+") + "$"
-                );
+                compiledArguments[i] = GlobMatcher.compile(arguments[i], true);
             }
 
-            argumentsPredicate = (method) -> {
-                if (method.getParameterCount() != compiledArguments.length) {
+            argumentsPredicate = (parameters) -> {
+                if (parameters.length != compiledArguments.length) {
                     return false;
                 }
 
-                Class<?>[] parameters = method.getParameterTypes();
                 for (int i = 0; i < parameters.length; i++) {
-                    if (!compiledArguments[i].matcher(parameters[i].getName()).matches()) {
+                    if (!compiledArguments[i].matches(parameters[i])) {
                         return false;
                     }
                 }
@@ -169,35 +130,120 @@ public final class WrappedPointCut {
             };
         }
 
-        Predicate<Method> classPredicate;
+        Predicate<String> classPredicate;
 
-        if (classMask.isEmpty() || classMask.equals(".+")) {
-            classPredicate = (method) -> true;
+        if (classMask.isEmpty() || classMask.equals("**")) {
+            classPredicate = (className) -> true;
         } else {
-            Pattern compiledClass = Pattern.compile("^" + classMask + "$");
-            classPredicate = (method) -> {
-                return compiledClass.matcher(method.getDeclaringClass().getName()).matches();
-            };
+            GlobMatcher compiledClass = GlobMatcher.compile(classMask, false);
+            classPredicate = compiledClass::matches;
         }
 
-        Predicate<Method> methodNamePredicate;
+        Predicate<String> methodNamePredicate;
 
-        if (methodNameMask.equals("[^\\.]+")) {
-            methodNamePredicate = (method) -> true;
+        String methodNameMask = matcher.group(2);
+        if (methodNameMask.equals("*")) {
+            methodNamePredicate = (methodName) -> true;
         } else {
-            Pattern compiledMethodName = Pattern.compile("^" + methodNameMask + "$");
-            methodNamePredicate = (method) -> {
-                return compiledMethodName.matcher(method.getName()).matches();
-            };
+            GlobMatcher compiledMethodName = GlobMatcher.compile(methodNameMask, false);
+            methodNamePredicate = compiledMethodName::matches;
         }
 
-        return (method) -> {
-            return methodNamePredicate.test(method) && classPredicate.test(method) && argumentsPredicate.test(method);
+        return (className, methodName, parameterTypes) -> {
+            return methodNamePredicate.test(methodName) && classPredicate.test(className) && argumentsPredicate.test(parameterTypes);
         };
     }
 
+    @NotNull
+    public static WrappedPointCut of(@NotNull Object aspectInstance, @NotNull Method pointCut, @NotNull String mask,
+                                     @NotNull PointCutType pointCutType) {
+        WrappedPointCut wrappedPointCut = of(pointCut, mask, pointCutType);
+        wrappedPointCut.bind(aspectInstance);
+        return wrappedPointCut;
+    }
+
+    public void bind(@NotNull Object aspectInstance) {
+        if (!pointCut.getDeclaringClass().isInstance(aspectInstance)) {
+            throw new IllegalArgumentException("%s is not an instance of %s".formatted(aspectInstance, pointCut.getDeclaringClass().getName()));
+        }
+
+        this.aspectInstance = aspectInstance;
+    }
+
+    public boolean isBound() {
+        return aspectInstance != null;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Disabled and not bound point cuts stay in advice chains, but are skipped on calls
+     *
+     * @return whether point cut is bound and enabled
+     */
+    public boolean isActive() {
+        return enabled && aspectInstance != null;
+    }
+
+    /**
+     * @return aspect instance or null if point cut is not bound yet
+     */
+    @Nullable
+    public Object getAspectInstance() {
+        return aspectInstance;
+    }
+
+    @NotNull
+    public Method getMethod() {
+        return pointCut;
+    }
+
+    /**
+     * @return mask of point cut or null if it is annotation-based
+     */
+    @Nullable
+    public String getMask() {
+        return mask;
+    }
+
+    /**
+     * @return methods of annotation-based point cut or null if it is mask-based
+     */
+    @Nullable
+    public AnnotatedMethods getAnnotatedMethods() {
+        return annotatedMethods;
+    }
+
     public boolean doesFitMask(@NotNull Method method) {
-        return methodPredicate.test(method);
+        return methodMask.test(method);
+    }
+
+    public boolean doesFitMask(@NotNull String className, @NotNull String methodName, @NotNull String @NotNull [] parameterTypes) {
+        return methodMask.test(className, methodName, parameterTypes);
+    }
+
+    /**
+     * @return whether point cut that fits mask of given method can advise it: {@link Around} advice that returns
+     * {@link CompletionStage} or {@link java.util.concurrent.CompletableFuture} advises only async methods
+     */
+    public boolean canAdvise(@NotNull Method method) {
+        return pointCutType != PointCutType.AROUND || !AsyncResults.isAsync(pointCut) || AsyncResults.isAsync(method);
+    }
+
+    /**
+     * Checks that {@link ru.leonidm.simplebeans.proxy.aspects.arguments.Arg} and
+     * {@link ru.leonidm.simplebeans.proxy.aspects.arguments.ReturnValue} parameters of the advice fit given advised method
+     *
+     * @throws IllegalStateException if they do not fit
+     */
+    public void checkBindings(@NotNull Method method) {
+        adviceInvoker.checkBindings(method);
     }
 
     @NotNull
@@ -209,20 +255,164 @@ public final class WrappedPointCut {
         return isVoid;
     }
 
+    /**
+     * @return whether the advice binds {@link ru.leonidm.simplebeans.proxy.aspects.arguments.Thrown}, so it is run
+     * after the method has thrown too
+     */
+    public boolean isThrowing() {
+        return isThrowing;
+    }
+
+    /**
+     * Makes void point cut run on the dispatcher instead of the caller thread, its calls return null immediately.
+     * Dispatcher is taken from given supplier on every call, so it may be created lazily, on the first call
+     */
+    public void dispatchTo(@NotNull Supplier<AsyncAdviceDispatcher> dispatcher) {
+        if (!isVoid) {
+            throw new IllegalStateException("Async point cut %s must return void".formatted(pointCut));
+        }
+
+        this.dispatcher = dispatcher;
+    }
+
+    public boolean isAsync() {
+        return dispatcher != null;
+    }
+
+    /**
+     * Makes void point cut run only on given share of calls, chosen with thread-local random, so skipped calls
+     * neither bind arguments nor share any state between threads
+     */
+    public void sample(double sampleRate) {
+        if (!(sampleRate > 0 && sampleRate <= 1)) {
+            throw new IllegalStateException("Sample rate of point cut %s must be in (0, 1], got %s".formatted(pointCut, sampleRate));
+        }
+
+        if (sampleRate < 1 && !isVoid) {
+            throw new IllegalStateException("Sampled point cut %s must return void".formatted(pointCut));
+        }
+
+        this.sampleRate = sampleRate;
+    }
+
+    public boolean isSampled() {
+        return sampleRate < 1;
+    }
+
+    public double getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * Runs given {@link After} point cuts of one call, non-void of them replace the result. If the method is
+     * {@link AsyncResults#isAsync async}, they are chained onto its result and get the value it is completed with
+     * or the exception it is completed with, so the returned stage is completed after them and is completed
+     * exceptionally if any of them throws
+     */
+    @Nullable
+    public static Object runAfter(@NotNull List<WrappedPointCut> after, @Nullable Object instance, @NotNull Method method,
+                                  @Nullable Object @Nullable [] args, @Nullable Object result) {
+        if (after.isEmpty()) {
+            return result;
+        }
+
+        if (result instanceof CompletionStage<?> stage && AsyncResults.isAsync(method)) {
+            return stage.handle((value, t) -> {
+                if (t == null) {
+                    return runAfterNow(after, instance, method, args, value);
+                }
+
+                Throwable thrown = t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+                runAfterThrown(after, instance, method, args, thrown);
+                throw t instanceof CompletionException completionException ? completionException : new CompletionException(t);
+            });
+        }
+
+        return runAfterNow(after, instance, method, args, result);
+    }
+
+    /**
+     * Runs given {@link After} point cuts that bind {@link ru.leonidm.simplebeans.proxy.aspects.arguments.Thrown}
+     * after the method has thrown given exception, other point cuts are skipped
+     */
+    public static void runAfterThrown(@NotNull List<WrappedPointCut> after, @Nullable Object instance, @NotNull Method method,
+                                      @Nullable Object @Nullable [] args, @NotNull Throwable thrown) {
+        for (int i = 0; i < after.size(); i++) {
+            WrappedPointCut wrappedPointCut = after.get(i);
+            if (wrappedPointCut.isThrowing() && wrappedPointCut.isActive()) {
+                wrappedPointCut.run(instance, method, args, thrown);
+            }
+        }
+    }
+
     @Nullable
-    public Object run(@NotNull Object instance, @NotNull Method method, @Nullable Object @Nullable [] args, @Nullable Object result) {
+    private static Object runAfterNow(@NotNull List<WrappedPointCut> after, @Nullable Object instance, @NotNull Method method,
+                                      @Nullable Object @Nullable [] args, @Nullable Object result) {
+        for (int i = 0; i < after.size(); i++) {
+            WrappedPointCut wrappedPointCut = after.get(i);
+            if (!wrappedPointCut.isActive()) {
+                continue;
+            }
+
+            if (wrappedPointCut.isThrowing()) {
+                wrappedPointCut.run(instance, method, args, null);
+                continue;
+            }
+
+            Object pointCutResult = wrappedPointCut.run(instance, method, args, result);
+            if (!wrappedPointCut.isVoid()) {
+                result = pointCutResult;
+            }
+        }
+
+        return result;
+    }
+
+    @Nullable
+    public Object run(@Nullable Object instance, @NotNull Method method, @Nullable Object @Nullable [] args, @Nullable Object result) {
+        double sampleRate = this.sampleRate;
+        if (sampleRate < 1 && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return null;
+        }
+
         try {
-            return pointCutHandler.handle(instance, method, args, result);
-        } catch (Exception e) {
+            Object aspectInstance = getBoundInstance();
+
+            Supplier<AsyncAdviceDispatcher> dispatcher = this.dispatcher;
+            if (dispatcher != null) {
+                dispatcher.get().dispatch(() -> {
+                    try {
+                        adviceInvoker.invoke(aspectInstance, instance, method, args, result, null);
+                    } catch (Throwable t) {
+                        throw new IllegalStateException("Got exception on running async point cut %s".formatted(pointCut), t);
+                    }
+                });
+                return null;
+            }
+
+            return adviceInvoker.invoke(aspectInstance, instance, method, args, result, null);
+        } catch (Throwable e) {
             throw ExceptionUtils.wrapToRuntime(e);
         }
     }
 
-    @FunctionalInterface
-    private interface PointCutHandler {
+    /**
+     * Runs {@link Around} advice with given join point. Its exceptions are thrown as they are, because mostly they
+     * are thrown by the advised method from {@link JoinPoint#proceed()}
+     */
+    @Nullable
+    Object runAround(@Nullable Object instance, @NotNull Method method, @Nullable Object @NotNull [] args,
+                     @NotNull JoinPoint joinPoint) throws Throwable {
+        return adviceInvoker.invoke(getBoundInstance(), instance, method, args, null, joinPoint);
+    }
 
-        @Nullable
-        Object handle(@NotNull Object instance, @NotNull Method method, @Nullable Object @Nullable [] args, @Nullable Object result);
+    @NotNull
+    private Object getBoundInstance() {
+        Object aspectInstance = this.aspectInstance;
+        if (aspectInstance == null) {
+            throw new IllegalStateException("Point cut %s is not bound to the aspect yet".formatted(pointCut));
+        }
 
+        return aspectInstance;
     }
 }
@@ -0,0 +1,19 @@
+package ru.leonidm.simplebeans.proxy.aspects.arguments;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Argument of the advised method with given index. Type of the parameter must be the same as type of the argument
+ * or its supertype. Primitive arguments are passed without boxing only by inlined advices, that is with
+ * {@code simplebeans.aop.inline=true}, otherwise they are unboxed from the array of arguments
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Arg {
+
+    int value();
+
+}
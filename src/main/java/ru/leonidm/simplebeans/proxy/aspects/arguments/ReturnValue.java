@@ -0,0 +1,16 @@
+package ru.leonidm.simplebeans.proxy.aspects.arguments;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Typed result of the advised method, same as {@link Result}, but its type is checked like type of {@link Arg}.
+ * Primitive results are passed without boxing only by inlined advices, that is with
+ * {@code simplebeans.aop.inline=true}, otherwise they are unboxed from the boxed result
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ReturnValue {
+}
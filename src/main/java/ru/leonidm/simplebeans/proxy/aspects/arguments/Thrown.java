@@ -0,0 +1,15 @@
+package ru.leonidm.simplebeans.proxy.aspects.arguments;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Exception thrown by the advised method or null if it has returned. Void {@link ru.leonidm.simplebeans.proxy.aspects.After}
+ * advice with such parameter is run after the method has thrown too, it cannot bind the result
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Thrown {
+}
@@ -0,0 +1,15 @@
+package ru.leonidm.simplebeans.proxy.weaving;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Id of the woven method in {@link Weaver}, it is bound as a constant to the parameters of {@link WovenAdvice}
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.PARAMETER)
+@interface MethodId {
+
+}
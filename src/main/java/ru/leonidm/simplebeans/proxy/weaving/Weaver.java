@@ -0,0 +1,295 @@
+package ru.leonidm.simplebeans.proxy.weaving;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.logger.LoggerAdapter;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.PointCutType;
+import ru.leonidm.simplebeans.proxy.aspects.WrappedPointCut;
+
+import java.lang.instrument.Instrumentation;
+import java.lang.instrument.UnmodifiableClassException;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runtime part of {@link ru.leonidm.simplebeans.proxy.AopEngine#WEAVING} engine. Woven methods call it directly,
+ * so advices are run on the beans themselves and no proxies are created
+ */
+public final class Weaver {
+
+    private static final List<ApplicationContext> CONTEXTS = new CopyOnWriteArrayList<>();
+    private static final List<WovenMethod> METHODS = new CopyOnWriteArrayList<>();
+    /**
+     * Ids of woven methods by class loaders of their classes, so classes with the same name do not share ids
+     * and class loaders are not held by the weaver
+     */
+    private static final Map<ClassLoader, Map<String, Integer>> METHOD_IDS = Collections.synchronizedMap(new WeakHashMap<>());
+    private static final ClassValue<Map<String, Method>> DECLARED_METHODS = new ClassValue<>() {
+        @Override
+        protected Map<String, Method> computeValue(Class<?> type) {
+            Map<String, Method> methods = new HashMap<>();
+            for (Method method : type.getDeclaredMethods()) {
+                methods.put(method.getName() + MethodType.methodType(method.getReturnType(), method.getParameterTypes())
+                        .toMethodDescriptorString(), method);
+            }
+
+            return methods;
+        }
+    };
+    private static final AtomicInteger VERSION = new AtomicInteger();
+
+    private Weaver() {
+
+    }
+
+    /**
+     * Starts weaving advices of given context. Classes that are already loaded are retransformed, other classes
+     * are woven when they are loaded
+     */
+    public static void register(@NotNull ApplicationContext context) {
+        Instrumentation instrumentation = WeavingAgent.getInstrumentation();
+        CONTEXTS.add(context);
+        invalidate();
+        retransform(instrumentation, context);
+    }
+
+    /**
+     * Weaves advices of given context into already loaded classes again, it is needed after aspects of the context
+     * have changed at runtime
+     */
+    public static void retransform(@NotNull ApplicationContext context) {
+        invalidate();
+        retransform(WeavingAgent.getInstrumentation(), context);
+    }
+
+    /**
+     * Makes woven methods check again whether they have active advices, it is needed after advices were bound,
+     * enabled or disabled
+     */
+    public static void invalidate() {
+        VERSION.incrementAndGet();
+    }
+
+    public static boolean isRegistered(@NotNull ApplicationContext context) {
+        return CONTEXTS.contains(context);
+    }
+
+    private static void retransform(@NotNull Instrumentation instrumentation, @NotNull ApplicationContext context) {
+        List<Class<?>> classes = new ArrayList<>();
+        for (Class<?> loadedClass : instrumentation.getAllLoadedClasses()) {
+            if (isWeavable(instrumentation, loadedClass) && hasAdvisedMethods(context, loadedClass)) {
+                classes.add(loadedClass);
+            }
+        }
+
+        if (classes.isEmpty()) {
+            return;
+        }
+
+        LoggerAdapter.get().debug("Weaving advices into {}", classes);
+
+        try {
+            instrumentation.retransformClasses(classes.toArray(Class<?>[]::new));
+        } catch (UnmodifiableClassException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Stops running advices of given context, woven methods of its classes do nothing since then
+     */
+    public static void unregister(@NotNull ApplicationContext context) {
+        CONTEXTS.remove(context);
+        invalidate();
+    }
+
+    static boolean hasContexts() {
+        return !CONTEXTS.isEmpty();
+    }
+
+    static boolean isAdvised(@NotNull String className, @NotNull String methodName, @NotNull String @NotNull [] parameterTypes) {
+        for (ApplicationContext context : CONTEXTS) {
+            if (context.isAdvised(className, methodName, parameterTypes)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    static int getMethodId(@NotNull ClassLoader classLoader, @NotNull String className, @NotNull String methodName,
+                           @NotNull String descriptor) {
+        Map<String, Integer> methodIds = METHOD_IDS.computeIfAbsent(classLoader, key -> new ConcurrentHashMap<>());
+        return methodIds.computeIfAbsent(className + '.' + methodName + descriptor, key -> {
+            synchronized (METHODS) {
+                METHODS.add(new WovenMethod(methodName + descriptor));
+                return METHODS.size() - 1;
+            }
+        });
+    }
+
+    /**
+     * Woven method checks it before its arguments are collected, so methods without active advices allocate nothing
+     *
+     * @return whether any registered context has active advices of given method
+     */
+    public static boolean isActive(int methodId, @NotNull Class<?> type) {
+        return METHODS.get(methodId).isActive(type);
+    }
+
+    @Nullable
+    public static Object @NotNull [] before(int methodId, @NotNull Class<?> type, @Nullable Object instance,
+                                            @Nullable Object @NotNull [] args) {
+        if (CONTEXTS.isEmpty()) {
+            return args;
+        }
+
+        AdviceChain adviceChain = METHODS.get(methodId).getAdviceChain(type);
+        for (WrappedPointCut wrappedPointCut : adviceChain.before) {
+            if (!wrappedPointCut.isActive()) {
+                continue;
+            }
+
+            wrappedPointCut.run(instance, adviceChain.method, args, null);
+        }
+
+        return args;
+    }
+
+    @Nullable
+    public static Object after(int methodId, @NotNull Class<?> type, @Nullable Object instance,
+                               @Nullable Object @NotNull [] args, @Nullable Object result) {
+        if (CONTEXTS.isEmpty()) {
+            return result;
+        }
+
+        AdviceChain adviceChain = METHODS.get(methodId).getAdviceChain(type);
+        return WrappedPointCut.runAfter(adviceChain.after, instance, adviceChain.method, args, result);
+    }
+
+    static boolean isExcluded(@NotNull String className) {
+        return className.startsWith("java.") || className.startsWith("javax.") || className.startsWith("jdk.")
+                || className.startsWith("sun.") || className.startsWith("com.sun.") || className.startsWith("net.bytebuddy.")
+                || className.startsWith("ru.leonidm.simplebeans.");
+    }
+
+    private static boolean isWeavable(@NotNull Instrumentation instrumentation, @NotNull Class<?> loadedClass) {
+        return loadedClass.getClassLoader() != null && !loadedClass.isArray() && !loadedClass.isHidden()
+                && !loadedClass.isAnnotation() && !isExcluded(loadedClass.getName())
+                && instrumentation.isModifiableClass(loadedClass);
+    }
+
+    private static boolean hasAdvisedMethods(@NotNull ApplicationContext context, @NotNull Class<?> loadedClass) {
+        try {
+            if (loadedClass.isAnnotationPresent(Aspect.class)) {
+                return false;
+            }
+
+            for (Method method : loadedClass.getDeclaredMethods()) {
+                if (method.isBridge() || Modifier.isAbstract(method.getModifiers())) {
+                    continue;
+                }
+
+                if (context.isAdvised(method)) {
+                    return true;
+                }
+            }
+        } catch (LinkageError e) {
+            return false;
+        }
+
+        return false;
+    }
+
+    private static final class WovenMethod {
+
+        private final String signature;
+        private volatile AdviceChain adviceChain;
+
+        private WovenMethod(@NotNull String signature) {
+            this.signature = signature;
+        }
+
+        @NotNull
+        private Method resolve(@NotNull Class<?> type) {
+            Method method = DECLARED_METHODS.get(type).get(signature);
+            if (method == null) {
+                throw new IllegalStateException("Cannot find woven method %s in %s".formatted(signature, type.getName()));
+            }
+
+            return method;
+        }
+
+        private boolean isActive(@NotNull Class<?> type) {
+            return getAdviceChain(type).active;
+        }
+
+        /**
+         * @return advices of the method from all registered contexts, they are resolved again only after the weaver
+         * was invalidated
+         */
+        @NotNull
+        private AdviceChain getAdviceChain(@NotNull Class<?> type) {
+            AdviceChain adviceChain = this.adviceChain;
+            int version = VERSION.get();
+            if (adviceChain != null && adviceChain.version == version) {
+                return adviceChain;
+            }
+
+            Method method = resolve(type);
+            List<WrappedPointCut> before = new ArrayList<>();
+            List<WrappedPointCut> after = new ArrayList<>();
+            for (ApplicationContext context : CONTEXTS) {
+                before.addAll(context.getPointCuts(method, PointCutType.BEFORE));
+                after.addAll(context.getPointCuts(method, PointCutType.AFTER));
+            }
+
+            adviceChain = new AdviceChain(version, method, before, after);
+            this.adviceChain = adviceChain;
+            return adviceChain;
+        }
+    }
+
+    private static final class AdviceChain {
+
+        private final int version;
+        private final Method method;
+        private final WrappedPointCut[] before;
+        private final List<WrappedPointCut> after;
+        /**
+         * Whether any advice of the chain was active when it was resolved
+         */
+        private final boolean active;
+
+        private AdviceChain(int version, @NotNull Method method, @NotNull List<WrappedPointCut> before,
+                            @NotNull List<WrappedPointCut> after) {
+            this.version = version;
+            this.method = method;
+            this.before = before.toArray(WrappedPointCut[]::new);
+            this.after = List.copyOf(after);
+            this.active = hasActivePointCuts(before) || hasActivePointCuts(after);
+        }
+
+        private static boolean hasActivePointCuts(@NotNull List<WrappedPointCut> pointCuts) {
+            for (WrappedPointCut pointCut : pointCuts) {
+                if (pointCut.isActive()) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package ru.leonidm.simplebeans.proxy.weaving;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.instrument.Instrumentation;
+
+/**
+ * Java agent of {@link ru.leonidm.simplebeans.proxy.AopEngine#WEAVING} engine. It is installed by adding
+ * {@code -javaagent:SimpleBeans.jar} to the JVM arguments or by attaching SimpleBeans jar to the running JVM
+ */
+public final class WeavingAgent {
+
+    private static volatile Instrumentation instrumentation;
+
+    private WeavingAgent() {
+
+    }
+
+    public static void premain(@Nullable String arguments, @NotNull Instrumentation instrumentation) {
+        install(instrumentation);
+    }
+
+    public static void agentmain(@Nullable String arguments, @NotNull Instrumentation instrumentation) {
+        install(instrumentation);
+    }
+
+    private static synchronized void install(@NotNull Instrumentation instrumentation) {
+        if (WeavingAgent.instrumentation != null) {
+            return;
+        }
+
+        if (!instrumentation.isRetransformClassesSupported()) {
+            throw new IllegalStateException("Weaving agent requires classes retransformation");
+        }
+
+        instrumentation.addTransformer(new WeavingTransformer(), true);
+        WeavingAgent.instrumentation = instrumentation;
+    }
+
+    public static boolean isInstalled() {
+        return instrumentation != null;
+    }
+
+    @NotNull
+    static Instrumentation getInstrumentation() {
+        Instrumentation instrumentation = WeavingAgent.instrumentation;
+        if (instrumentation == null) {
+            throw new IllegalStateException("Weaving engine requires SimpleBeans to be loaded as java agent");
+        }
+
+        return instrumentation;
+    }
+}
@@ -0,0 +1,96 @@
+package ru.leonidm.simplebeans.proxy.weaving;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.description.type.TypeDescription;
+import net.bytebuddy.dynamic.ClassFileLocator;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.scaffold.InstrumentedType;
+import net.bytebuddy.dynamic.scaffold.MethodGraph;
+import net.bytebuddy.dynamic.scaffold.TypeValidation;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.matcher.ElementMatchers;
+import net.bytebuddy.pool.TypePool;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import ru.leonidm.simplebeans.logger.LoggerAdapter;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+
+import java.lang.instrument.ClassFileTransformer;
+import java.security.ProtectionDomain;
+
+/**
+ * Weaves {@link WovenAdvice} into the methods that fit masks of point cuts of registered contexts. Classes are
+ * described from their bytes, so they are matched before they are loaded
+ */
+final class WeavingTransformer implements ClassFileTransformer {
+
+    @Override
+    public byte @Nullable [] transform(@Nullable ClassLoader loader, @Nullable String internalName,
+                                       @Nullable Class<?> classBeingRedefined, @Nullable ProtectionDomain protectionDomain,
+                                       byte @NotNull [] classfileBuffer) {
+        if (loader == null || internalName == null || !Weaver.hasContexts()) {
+            return null;
+        }
+
+        String className = internalName.replace('/', '.');
+        if (Weaver.isExcluded(className)) {
+            return null;
+        }
+
+        try {
+            return weave(loader, className, classfileBuffer);
+        } catch (Throwable t) {
+            LoggerAdapter.get().warn("Cannot weave advices into {}", className, t);
+            return null;
+        }
+    }
+
+    private static byte @Nullable [] weave(@NotNull ClassLoader loader, @NotNull String className, byte @NotNull [] bytes) {
+        ClassFileLocator classFileLocator = new ClassFileLocator.Compound(ClassFileLocator.Simple.of(className, bytes),
+                ClassFileLocator.ForClassLoader.of(loader));
+        TypeDescription type = TypePool.Default.WithLazyResolution.of(classFileLocator).describe(className).resolve();
+        if (type.isAnnotation() || type.getDeclaredAnnotations().isAnnotationPresent(Aspect.class)) {
+            return null;
+        }
+
+        DynamicType.Builder<?> builder = null;
+        for (MethodDescription.InDefinedShape method : type.getDeclaredMethods()) {
+            if (!method.isMethod() || method.isAbstract() || method.isNative() || method.isBridge()) {
+                continue;
+            }
+
+            String[] parameterTypes = method.getParameters().asTypeList().asErasures().stream()
+                    .map(TypeDescription::getName)
+                    .toArray(String[]::new);
+            if (!Weaver.isAdvised(className, method.getName(), parameterTypes)) {
+                continue;
+            }
+
+            if (builder == null) {
+                builder = new ByteBuddy()
+                        .with(TypeValidation.DISABLED)
+                        .with(Implementation.Context.Disabled.Factory.INSTANCE)
+                        .with(MethodGraph.Compiler.ForDeclaredMethods.INSTANCE)
+                        .with(InstrumentedType.Factory.Default.FROZEN)
+                        .redefine(type, classFileLocator);
+            }
+
+            int methodId = Weaver.getMethodId(loader, className, method.getName(), method.getDescriptor());
+            Class<?> adviceClass = method.getReturnType().represents(void.class) ? WovenAdvice.VoidMethod.class : WovenAdvice.ValueMethod.class;
+
+            builder = builder.visit(Advice.withCustomMapping()
+                    .bind(MethodId.class, methodId)
+                    .to(adviceClass)
+                    .on(ElementMatchers.is(method)));
+        }
+
+        if (builder == null) {
+            return null;
+        }
+
+        LoggerAdapter.get().debug("Woven advices into {}", className);
+        return builder.make().getBytes();
+    }
+}
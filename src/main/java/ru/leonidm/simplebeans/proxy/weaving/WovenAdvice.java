@@ -0,0 +1,83 @@
+package ru.leonidm.simplebeans.proxy.weaving;
+
+import net.bytebuddy.asm.Advice;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Code that is inlined into the beginning and the end of every woven method. Arguments are collected into
+ * the array only once and only if the method has active advices, method itself and its declaring class are
+ * constants. Null array returned on enter means that advices are skipped on exit too
+ */
+final class WovenAdvice {
+
+    private WovenAdvice() {
+
+    }
+
+    static final class VoidMethod {
+
+        private VoidMethod() {
+
+        }
+
+        @Advice.OnMethodEnter
+        @Nullable
+        static Object @Nullable [] enter(@MethodId int methodId,
+                                         @Advice.Origin @NotNull Class<?> type,
+                                         @Advice.This(optional = true) @Nullable Object instance,
+                                         @Advice.AllArguments(readOnly = false, typing = Assigner.Typing.DYNAMIC) @Nullable Object @NotNull [] args) {
+            // Array of arguments is created by the woven code only where it is read
+            if (!Weaver.isActive(methodId, type)) {
+                return null;
+            }
+
+            args = Weaver.before(methodId, type, instance, args);
+            return args;
+        }
+
+        @Advice.OnMethodExit
+        static void exit(@MethodId int methodId,
+                         @Advice.Origin @NotNull Class<?> type,
+                         @Advice.This(optional = true) @Nullable Object instance,
+                         @Advice.Enter @Nullable Object @Nullable [] args) {
+            if (args != null) {
+                Weaver.after(methodId, type, instance, args, null);
+            }
+        }
+    }
+
+    static final class ValueMethod {
+
+        private ValueMethod() {
+
+        }
+
+        @Advice.OnMethodEnter
+        @Nullable
+        static Object @Nullable [] enter(@MethodId int methodId,
+                                         @Advice.Origin @NotNull Class<?> type,
+                                         @Advice.This(optional = true) @Nullable Object instance,
+                                         @Advice.AllArguments(readOnly = false, typing = Assigner.Typing.DYNAMIC) @Nullable Object @NotNull [] args) {
+            // Array of arguments is created by the woven code only where it is read
+            if (!Weaver.isActive(methodId, type)) {
+                return null;
+            }
+
+            args = Weaver.before(methodId, type, instance, args);
+            return args;
+        }
+
+        @Advice.OnMethodExit
+        static void exit(@MethodId int methodId,
+                         @Advice.Origin @NotNull Class<?> type,
+                         @Advice.This(optional = true) @Nullable Object instance,
+                         @Advice.Enter @Nullable Object @Nullable [] args,
+                         @Advice.Return(readOnly = false, typing = Assigner.Typing.DYNAMIC) @Nullable Object result) {
+            if (args != null) {
+                result = Weaver.after(methodId, type, instance, args, result);
+            }
+        }
+    }
+}
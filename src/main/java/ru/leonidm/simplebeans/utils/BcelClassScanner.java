@@ -30,6 +30,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 import java.util.Set;
 import java.util.function.Predicate;
@@ -552,12 +553,27 @@ public final class BcelClassScanner {
 
         @Override
         public boolean hasNext() {
-            return !directories.isEmpty() || !classFiles.isEmpty();
+            findClassFiles();
+            return !classFiles.isEmpty();
         }
 
         @Override
         public String next() {
-            while (classFiles.isEmpty()) {
+            findClassFiles();
+            if (classFiles.isEmpty()) {
+                throw new NoSuchElementException();
+            }
+
+            File file = classFiles.pop();
+
+            return normalizeClassName(file.getAbsolutePath().substring(pathPrefixLength));
+        }
+
+        /**
+         * Directories may contain no class files at all, e.g. directories with resources only
+         */
+        private void findClassFiles() {
+            while (classFiles.isEmpty() && !directories.isEmpty()) {
                 File directory = directories.pop();
                 File[] files = directory.listFiles(file -> {
                     if (file.isDirectory()) {
@@ -576,10 +592,6 @@ public final class BcelClassScanner {
                     }
                 }
             }
-
-            File file = classFiles.pop();
-
-            return normalizeClassName(file.getAbsolutePath().substring(pathPrefixLength));
         }
     }
 }
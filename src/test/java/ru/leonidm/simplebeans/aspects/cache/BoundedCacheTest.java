@@ -0,0 +1,27 @@
+package ru.leonidm.simplebeans.aspects.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+public class BoundedCacheTest {
+
+    @Test
+    public void main() {
+        BoundedCache cache = new BoundedCache(4, 0);
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("key", i);
+        }
+
+        assertEquals(9_999, cache.get("key"));
+        assertEquals(1, cache.queueSize());
+        assertEquals(1, cache.getStats().getSize());
+
+        for (int i = 0; i < 10_000; i++) {
+            cache.put("key" + i % 8, i);
+        }
+
+        assertEquals(4, cache.queueSize());
+        assertEquals(4, cache.getStats().getSize());
+    }
+}
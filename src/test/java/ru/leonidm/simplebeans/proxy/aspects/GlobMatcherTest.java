@@ -0,0 +1,102 @@
+package ru.leonidm.simplebeans.proxy.aspects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+import java.util.regex.Pattern;
+
+public class GlobMatcherTest {
+
+    @Test
+    public void main() {
+        // * does not match dots, ** does
+        GlobMatcher star = GlobMatcher.compile("net.*", false);
+        assertTrue(star.matches("net.Main"));
+        assertTrue(star.matches("net."));
+        assertFalse(star.matches("net.app.Main"));
+
+        GlobMatcher doubleStar = GlobMatcher.compile("net.**", false);
+        assertTrue(doubleStar.matches("net.app.Main"));
+        assertFalse(doubleStar.matches("org.app.Main"));
+
+        GlobMatcher middle = GlobMatcher.compile("**.app.*Service", false);
+        assertTrue(middle.matches("net.app.UserService"));
+        assertTrue(middle.matches("net.core.app.Service"));
+        assertFalse(middle.matches("net.app.impl.UserService"));
+
+        // Wildcards of argument masks match at least one symbol
+        GlobMatcher argument = GlobMatcher.compile("java.lang.*", true);
+        assertTrue(argument.matches("java.lang.String"));
+        assertFalse(argument.matches("java.lang."));
+        assertFalse(argument.matches("java.lang.ref.Reference"));
+
+        // Trailing * of the class part is kept
+        MethodMask classMask = WrappedPointCut.buildMethodMask("net.*.run");
+        assertTrue(classMask.test("net.Main", "run", new String[0]));
+        assertFalse(classMask.test("net.app.Main", "run", new String[0]));
+        assertFalse(classMask.test("net.Main", "stop", new String[0]));
+
+        // Dots of argument masks match only dots
+        MethodMask argumentsMask = WrappedPointCut.buildMethodMask("**.run(java.lang.String, *)");
+        assertTrue(argumentsMask.test("net.Main", "run", new String[]{"java.lang.String", "int"}));
+        assertFalse(argumentsMask.test("net.Main", "run", new String[]{"javaxlangxString", "int"}));
+        assertFalse(argumentsMask.test("net.Main", "run", new String[]{"java.lang.String"}));
+        assertFalse(argumentsMask.test("net.Main", "run", new String[]{"java.lang.String", "java.lang.Object"}));
+
+        // Matches the same texts as regular expressions that masks were translated to before
+        Random random = new Random(42);
+        for (int i = 0; i < 100_000; i++) {
+            String glob = randomString(random, "ab.*", 6);
+            String text = randomString(random, "ab.", 8);
+            boolean nonEmptyWildcards = random.nextBoolean();
+
+            boolean expected = toRegex(glob, nonEmptyWildcards).matcher(text).matches();
+            assertEquals(expected, GlobMatcher.compile(glob, nonEmptyWildcards).matches(text),
+                    "Glob '%s' and text '%s'".formatted(glob, text));
+        }
+    }
+
+    /**
+     * Translation of the previous regex-based matcher without its quirks: all dots are literal and trailing
+     * {@code *} is not dropped
+     */
+    @NotNull
+    private static Pattern toRegex(@NotNull String glob, boolean nonEmptyWildcards) {
+        StringBuilder regex = new StringBuilder();
+        int index = 0;
+        while (index < glob.length()) {
+            char chr = glob.charAt(index);
+            if (chr != '*') {
+                regex.append(Pattern.quote(String.valueOf(chr)));
+                index++;
+                continue;
+            }
+
+            int stars = 0;
+            while (index < glob.length() && glob.charAt(index) == '*') {
+                stars++;
+                index++;
+            }
+
+            regex.append(stars > 1 ? "." : "[^.]").append(nonEmptyWildcards ? '+' : '*');
+        }
+
+        return Pattern.compile(regex.toString());
+    }
+
+    @NotNull
+    private static String randomString(@NotNull Random random, @NotNull String alphabet, int maxLength) {
+        StringBuilder builder = new StringBuilder();
+        int length = random.nextInt(maxLength + 1);
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+
+        return builder.toString();
+    }
+}
@@ -0,0 +1,84 @@
+package ru.leonidm.simplebeans.proxy.aspects;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.jetbrains.annotations.NotNull;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class PointCutIndexTest {
+
+    private static final String[] MASKS = {
+            "net.app.Service.run(int)",
+            "net.app.Service.run",
+            "net.app.Service.*",
+            "net.app.*.run",
+            "net.*.Service.run",
+            "net.**.run",
+            "net.app.Service*.run",
+            "**.Service.stop()",
+            "**.run(**)",
+            "*.Main.run",
+            "run",
+            "r*n",
+            "org.app.Service.run",
+            "net.app.Service.run(java.lang.String)",
+            "net.app.Service.run",
+    };
+
+    private static final String[] CLASS_NAMES = {
+            "Main", "net.Main", "net.Service", "net.app.Service", "net.app.ServiceImpl", "net.app.impl.Service",
+            "net.core.Service", "net.app", "org.app.Service", "org.Main", "netapp.Service"
+    };
+
+    private static final String[] METHOD_NAMES = {"run", "stop", "rain", "r", "start"};
+
+    private static final String[][] PARAMETER_TYPES = {{}, {"int"}, {"java.lang.String"}, {"int", "long"}};
+
+    @Test
+    public void main() throws NoSuchMethodException {
+        Method advice = PointCutIndexTest.class.getMethod("advice");
+        List<WrappedPointCut> pointCuts = new ArrayList<>();
+        for (String mask : MASKS) {
+            pointCuts.add(WrappedPointCut.of(advice, mask, PointCutType.BEFORE));
+        }
+
+        PointCutIndex index = PointCutIndex.of(pointCuts);
+
+        // Several point cuts fit the same method, they are found in order they were indexed
+        assertEquals(List.of("net.app.Service.run(int)", "net.app.Service.run", "net.app.Service.*", "net.app.*.run",
+                        "net.*.Service.run", "net.**.run", "net.app.Service*.run", "**.run(**)", "run", "r*n",
+                        "net.app.Service.run"),
+                masks(index.find("net.app.Service", "run", new String[]{"int"})));
+        assertEquals(List.of("net.app.Service.*", "**.Service.stop()"),
+                masks(index.find("net.app.Service", "stop", new String[0])));
+        assertEquals(List.of(), masks(index.find("org.Main", "start", new String[0])));
+
+        // Same point cuts as the linear scan of all of them
+        for (String className : CLASS_NAMES) {
+            for (String methodName : METHOD_NAMES) {
+                for (String[] parameterTypes : PARAMETER_TYPES) {
+                    List<WrappedPointCut> expected = pointCuts.stream()
+                            .filter(pointCut -> pointCut.doesFitMask(className, methodName, parameterTypes))
+                            .collect(Collectors.toList());
+
+                    assertEquals(expected, index.find(className, methodName, parameterTypes),
+                            "%s.%s(%s)".formatted(className, methodName, String.join(", ", parameterTypes)));
+                }
+            }
+        }
+    }
+
+    public void advice() {
+
+    }
+
+    @NotNull
+    private static List<String> masks(@NotNull List<WrappedPointCut> pointCuts) {
+        return pointCuts.stream().map(WrappedPointCut::getMask).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,38 @@
+package ru.leonidm.simplebeanstests.advicefailure;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+
+import java.io.IOException;
+
+@Application
+public class AdviceFailureApplicationTest {
+
+    @Test
+    public void main() {
+        // Checked exceptions of advices are wrapped the same way whether advices are inlined or not
+        assertWrapped(AdviceFailureApplicationTest.class);
+        assertWrapped(InlinedApplication.class);
+    }
+
+    private static void assertWrapped(Class<?> applicationClass) {
+        try (ApplicationContext context = SimpleApplication.run(applicationClass)) {
+            PaymentComponent paymentComponent = context.getBean(PaymentComponent.class);
+            assertEquals(10, paymentComponent.pay(10));
+
+            IllegalStateException exception = assertThrows(IllegalStateException.class, () -> paymentComponent.pay(-1));
+            assertInstanceOf(IOException.class, exception.getCause());
+        }
+    }
+
+    @Application(properties = "simplebeans.aop.inline=true")
+    public static class InlinedApplication {
+
+    }
+}
@@ -0,0 +1,18 @@
+package ru.leonidm.simplebeanstests.advicefailure;
+
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.Before;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Arg;
+
+import java.io.IOException;
+
+@Aspect
+public class LimitAspect {
+
+    @Before("**.PaymentComponent.pay(int)")
+    public void check(@Arg(0) int amount) throws IOException {
+        if (amount < 0) {
+            throw new IOException("Negative amount");
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package ru.leonidm.simplebeanstests.advicefailure;
+
+import ru.leonidm.simplebeans.beans.Component;
+
+@Component
+public class PaymentComponent {
+
+    public int pay(int amount) {
+        return amount;
+    }
+}
@@ -0,0 +1,51 @@
+package ru.leonidm.simplebeanstests.allocation;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.management.ThreadMXBean;
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+import ru.leonidm.simplebeans.proxy.aspects.PointCutType;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+
+@Application(properties = "simplebeans.aop.inline=true")
+public class AllocationApplicationTest {
+
+    private static final int ITERATIONS = 100_000;
+
+    @Test
+    public void main() throws NoSuchMethodException {
+        try (ApplicationContext context = SimpleApplication.run(AllocationApplicationTest.class)) {
+            CounterComponent counter = context.getBean(CounterComponent.class);
+            Method method = CounterComponent.class.getMethod("add", long.class);
+            assertEquals(2, context.getPointCuts(method, PointCutType.BEFORE).size());
+            assertEquals(1, context.getPointCuts(method, PointCutType.AFTER).size());
+
+            callProxy(counter);
+
+            ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            long value = callProxy(counter);
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            assertTrue(allocated < ITERATIONS, "Calling the proxy allocated %d bytes".formatted(allocated));
+            assertEquals(ITERATIONS * 2, value);
+            assertEquals(ITERATIONS * 2, context.getBean(CounterAspect.class).getCalls());
+        }
+    }
+
+    private static long callProxy(CounterComponent counter) {
+        long value = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            value = counter.add(1);
+        }
+
+        return value;
+    }
+}
@@ -0,0 +1,38 @@
+package ru.leonidm.simplebeanstests.allocation;
+
+import ru.leonidm.simplebeans.proxy.aspects.After;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.Before;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Arg;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Origin;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.ReturnValue;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.This;
+
+import java.lang.reflect.Method;
+
+@Aspect
+public class CounterAspect {
+
+    private int calls;
+
+    @Before("**.CounterComponent.add")
+    public void count() {
+        calls++;
+    }
+
+    @Before("**.CounterComponent.add")
+    public void check(@This Object instance, @Origin Method method, @Arg(0) long delta) {
+        if (delta <= 0) {
+            throw new IllegalStateException();
+        }
+    }
+
+    @After("**.CounterComponent.add")
+    public long result(@ReturnValue long result) {
+        return result;
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+}
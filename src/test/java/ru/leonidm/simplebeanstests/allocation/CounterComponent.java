@@ -0,0 +1,14 @@
+package ru.leonidm.simplebeanstests.allocation;
+
+import ru.leonidm.simplebeans.beans.Component;
+
+@Component
+public class CounterComponent {
+
+    private long value;
+
+    public long add(long delta) {
+        value += delta;
+        return value;
+    }
+}
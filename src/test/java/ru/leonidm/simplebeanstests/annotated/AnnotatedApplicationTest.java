@@ -0,0 +1,31 @@
+package ru.leonidm.simplebeanstests.annotated;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+
+import java.util.List;
+
+@Application
+public class AnnotatedApplicationTest {
+
+    @Test
+    public void main() throws NoSuchMethodException {
+        try (ApplicationContext context = SimpleApplication.run(AnnotatedApplicationTest.class)) {
+            OrderComponent orderComponent = context.getBean(OrderComponent.class);
+            assertEquals(6, orderComponent.total(new int[]{1, 2, 3}));
+            assertEquals("order", orderComponent.name());
+            assertEquals("audit: done", context.getBean(AuditComponent.class).log("done"));
+
+            assertEquals(List.of("total", "log"), context.getBean(TracingAspect.class).getTraced());
+
+            assertTrue(context.isAdvised(OrderComponent.class.getMethod("total", int[].class)));
+            assertFalse(context.isAdvised(OrderComponent.class.getMethod("name")));
+        }
+    }
+}
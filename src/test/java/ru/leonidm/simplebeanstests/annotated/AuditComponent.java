@@ -0,0 +1,12 @@
+package ru.leonidm.simplebeanstests.annotated;
+
+import ru.leonidm.simplebeans.beans.Component;
+
+@Component
+@Traced
+public class AuditComponent {
+
+    public String log(String message) {
+        return "audit: " + message;
+    }
+}
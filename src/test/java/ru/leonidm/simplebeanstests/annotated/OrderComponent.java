@@ -0,0 +1,18 @@
+package ru.leonidm.simplebeanstests.annotated;
+
+import ru.leonidm.simplebeans.beans.Component;
+
+import java.util.Arrays;
+
+@Component
+public class OrderComponent {
+
+    @Traced
+    public int total(int[] prices) {
+        return Arrays.stream(prices).sum();
+    }
+
+    public String name() {
+        return "order";
+    }
+}
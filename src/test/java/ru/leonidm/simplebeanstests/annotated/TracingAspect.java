@@ -0,0 +1,24 @@
+package ru.leonidm.simplebeanstests.annotated;
+
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.Before;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Origin;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+@Aspect
+public class TracingAspect {
+
+    private final List<String> traced = new ArrayList<>();
+
+    @Before(annotatedWith = Traced.class)
+    public void trace(@Origin Method method) {
+        traced.add(method.getName());
+    }
+
+    public List<String> getTraced() {
+        return traced;
+    }
+}
@@ -0,0 +1,48 @@
+package ru.leonidm.simplebeanstests.aot;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import net.bytebuddy.jar.asm.ClassReader;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+import ru.leonidm.simplebeans.proxy.AotProxyGenerator;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+@Application
+public class AotApplicationTest {
+
+    @Test
+    public void main(@TempDir Path directory) throws Exception {
+        try (ApplicationContext context = SimpleApplication.run(AotApplicationTest.class)) {
+            assertEquals(1, AotProxyGenerator.generate(AotApplicationTest.class, directory));
+            // Context of the generator does not stop the running application
+            assertThrows(IllegalArgumentException.class, () -> SimpleApplication.run(AotApplicationTest.class));
+
+            assertEquals("Hello, world!", context.getBean(GreetingComponent.class).greet("world"));
+        }
+
+        String key = GreetingComponent.class.getName();
+        Path proxyClassFile = directory.resolve("META-INF/simplebeans/proxies/" + key + ".bin");
+        assertTrue(Files.exists(proxyClassFile));
+
+        List<String> index = Files.readAllLines(directory.resolve("META-INF/simplebeans/proxies.idx"));
+        assertEquals(List.of(key + "\tgreet(java.lang.String;)java.lang.String"), index);
+
+        // Application that sees the index gets the prebuilt proxy class instead of generating it
+        try (PrebuiltClassLoader classLoader = new PrebuiltClassLoader(directory)) {
+            List<String> result = (List<String>) classLoader.loadClass(PrebuiltApplication.class.getName()).getMethod("run").invoke(null);
+
+            String prebuiltName = new ClassReader(Files.readAllBytes(proxyClassFile)).getClassName().replace('/', '.');
+            assertTrue(result.get(0).startsWith(prebuiltName + '/'));
+            assertEquals("Hello, world!", result.get(1));
+        }
+    }
+}
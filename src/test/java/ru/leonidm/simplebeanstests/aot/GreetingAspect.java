@@ -0,0 +1,14 @@
+package ru.leonidm.simplebeanstests.aot;
+
+import ru.leonidm.simplebeans.proxy.aspects.After;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Result;
+
+@Aspect
+public class GreetingAspect {
+
+    @After("**.GreetingComponent.greet(java.lang.String)")
+    public String advice(@Result Object result) {
+        return result + "!";
+    }
+}
@@ -0,0 +1,17 @@
+package ru.leonidm.simplebeanstests.aot;
+
+import org.jetbrains.annotations.NotNull;
+import ru.leonidm.simplebeans.beans.Component;
+
+@Component
+public class GreetingComponent {
+
+    @NotNull
+    public String greet(@NotNull String name) {
+        return "Hello, " + name;
+    }
+
+    public int getCount() {
+        return 1;
+    }
+}
@@ -0,0 +1,22 @@
+package ru.leonidm.simplebeanstests.aot;
+
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+
+import java.util.List;
+
+/**
+ * Runs the application inside {@link PrebuiltClassLoader}
+ */
+public class PrebuiltApplication {
+
+    /**
+     * @return name of the proxy class of the greeting bean and its greeting
+     */
+    public static List<String> run() {
+        try (ApplicationContext context = SimpleApplication.run(AotApplicationTest.class)) {
+            GreetingComponent greetingComponent = context.getBean(GreetingComponent.class);
+            return List.of(greetingComponent.getClass().getName(), greetingComponent.greet("world"));
+        }
+    }
+}
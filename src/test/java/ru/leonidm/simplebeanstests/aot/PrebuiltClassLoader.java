@@ -0,0 +1,38 @@
+package ru.leonidm.simplebeanstests.aot;
+
+import org.jetbrains.annotations.NotNull;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Path;
+
+/**
+ * Loads SimpleBeans and the application once again together with proxy classes prebuilt into given directory,
+ * as if all of them were in the same jar
+ */
+public class PrebuiltClassLoader extends URLClassLoader {
+
+    public PrebuiltClassLoader(@NotNull Path directory) throws MalformedURLException {
+        super(new URL[]{getLocation(SimpleApplication.class), getLocation(PrebuiltClassLoader.class), directory.toUri().toURL()},
+                PrebuiltClassLoader.class.getClassLoader());
+    }
+
+    @NotNull
+    private static URL getLocation(@NotNull Class<?> clazz) {
+        return clazz.getProtectionDomain().getCodeSource().getLocation();
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!name.startsWith("ru.leonidm.simplebeans")) {
+            return super.loadClass(name, resolve);
+        }
+
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loadedClass = findLoadedClass(name);
+            return loadedClass != null ? loadedClass : findClass(name);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package ru.leonidm.simplebeanstests.around;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+
+@Application
+public class AroundApplicationTest {
+
+    @Test
+    public void main() {
+        try (ApplicationContext context = SimpleApplication.run(AroundApplicationTest.class)) {
+            PriceComponent priceComponent = context.getBean(PriceComponent.class);
+            assertEquals(30, priceComponent.price("tea"));
+            assertEquals(30, priceComponent.price("tea"));
+            assertEquals(60, priceComponent.price("coffee"));
+            assertEquals(2, priceComponent.getCalls());
+
+            assertEquals(20, priceComponent.discount(20));
+            assertEquals(50, priceComponent.discount(80));
+        }
+    }
+}
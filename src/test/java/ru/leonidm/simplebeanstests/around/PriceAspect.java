@@ -0,0 +1,32 @@
+package ru.leonidm.simplebeanstests.around;
+
+import ru.leonidm.simplebeans.proxy.aspects.Around;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.JoinPoint;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Arg;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Aspect
+public class PriceAspect {
+
+    private final Map<String, Object> cache = new HashMap<>();
+
+    @Around("**.PriceComponent.price(java.lang.String)")
+    public Object cache(@Arg(0) String item, JoinPoint joinPoint) throws Throwable {
+        Object cached = cache.get(item);
+        if (cached != null) {
+            return cached;
+        }
+
+        Object result = joinPoint.proceed();
+        cache.put(item, result);
+        return result;
+    }
+
+    @Around("**.PriceComponent.discount(int)")
+    public Object limit(@Arg(0) int percent, JoinPoint joinPoint) throws Throwable {
+        return joinPoint.proceed(new Object[]{Math.min(percent, 50)});
+    }
+}
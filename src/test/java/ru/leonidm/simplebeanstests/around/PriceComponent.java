@@ -0,0 +1,22 @@
+package ru.leonidm.simplebeanstests.around;
+
+import ru.leonidm.simplebeans.beans.Component;
+
+@Component
+public class PriceComponent {
+
+    private int calls;
+
+    public int price(String item) {
+        calls++;
+        return item.length() * 10;
+    }
+
+    public int discount(int percent) {
+        return percent;
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+}
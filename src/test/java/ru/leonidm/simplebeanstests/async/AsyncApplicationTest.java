@@ -0,0 +1,39 @@
+package ru.leonidm.simplebeanstests.async;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Application(properties = {"simplebeans.async.executor=fixed", "simplebeans.async.threads=2"})
+public class AsyncApplicationTest {
+
+    @Test
+    public void main() throws Exception {
+        ApplicationContext context = SimpleApplication.run(AsyncApplicationTest.class);
+        MailComponent mailComponent = context.getBean(MailComponent.class);
+        try (context) {
+            assertTrue(mailComponent.send("user@mail").get(5, TimeUnit.SECONDS).startsWith("user@mail on simplebeans-async-"));
+
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> mailComponent.send("").get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, exception.getCause());
+
+            mailComponent.broadcast("hello");
+            assertTrue(mailComponent.getSent().await(5, TimeUnit.SECONDS));
+            assertEquals(0, mailComponent.getSent().getCount());
+        }
+
+        // Executors are not created again after the context is closed
+        assertThrows(IllegalStateException.class, context::getAsyncExecutor);
+        assertThrows(IllegalStateException.class, context::getAsyncAdviceDispatcher);
+        assertThrows(IllegalStateException.class, () -> mailComponent.send("user@mail"));
+    }
+}
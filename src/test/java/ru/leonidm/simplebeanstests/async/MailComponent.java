@@ -0,0 +1,31 @@
+package ru.leonidm.simplebeanstests.async;
+
+import ru.leonidm.simplebeans.aspects.async.Async;
+import ru.leonidm.simplebeans.beans.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+@Component
+public class MailComponent {
+
+    private final CountDownLatch sent = new CountDownLatch(1);
+
+    @Async
+    public CompletableFuture<String> send(String address) {
+        if (address.isEmpty()) {
+            throw new IllegalArgumentException("Empty address");
+        }
+
+        return CompletableFuture.completedFuture(address + " on " + Thread.currentThread().getName());
+    }
+
+    @Async
+    public void broadcast(String message) {
+        sent.countDown();
+    }
+
+    public CountDownLatch getSent() {
+        return sent;
+    }
+}
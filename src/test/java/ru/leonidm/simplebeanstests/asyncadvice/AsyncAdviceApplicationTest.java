@@ -0,0 +1,38 @@
+package ru.leonidm.simplebeanstests.asyncadvice;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+
+import java.util.concurrent.TimeUnit;
+
+@Application
+public class AsyncAdviceApplicationTest {
+
+    @Test
+    public void main() throws Exception {
+        // Dispatcher is created on the first dispatch, so scanning the application does not create it
+        assertDoesNotThrow(() -> ApplicationContext.scan(NoWorkersApplication.class).close());
+
+        try (ApplicationContext context = SimpleApplication.run(AsyncAdviceApplicationTest.class)) {
+            OrderComponent orderComponent = context.getBean(OrderComponent.class);
+            AuditAspect auditAspect = context.getBean(AuditAspect.class);
+
+            assertEquals("order:tea", orderComponent.place("tea"));
+            assertEquals("order:tea@simplebeans-advice-1", auditAspect.getRecords().poll(5, TimeUnit.SECONDS));
+            assertEquals(0, context.getAsyncAdviceDispatcher().getDroppedCount());
+        }
+    }
+
+    /**
+     * Dispatcher of this application cannot be created
+     */
+    @Application(properties = "simplebeans.aop.async.threads=0")
+    public static class NoWorkersApplication {
+
+    }
+}
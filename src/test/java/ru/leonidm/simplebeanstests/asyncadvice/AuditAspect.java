@@ -0,0 +1,23 @@
+package ru.leonidm.simplebeanstests.asyncadvice;
+
+import ru.leonidm.simplebeans.proxy.aspects.After;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.ReturnValue;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+@Aspect
+public class AuditAspect {
+
+    private final BlockingQueue<String> records = new LinkedBlockingQueue<>();
+
+    @After(value = "**.OrderComponent.place(java.lang.String)", async = true)
+    public void audit(@ReturnValue String order) {
+        records.add(order + "@" + Thread.currentThread().getName());
+    }
+
+    public BlockingQueue<String> getRecords() {
+        return records;
+    }
+}
@@ -0,0 +1,11 @@
+package ru.leonidm.simplebeanstests.asyncadvice;
+
+import ru.leonidm.simplebeans.beans.Component;
+
+@Component
+public class OrderComponent {
+
+    public String place(String item) {
+        return "order:" + item;
+    }
+}
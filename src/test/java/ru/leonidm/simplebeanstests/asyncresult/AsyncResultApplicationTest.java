@@ -0,0 +1,51 @@
+package ru.leonidm.simplebeanstests.asyncresult;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+import ru.leonidm.simplebeans.aspects.timed.TimedAspect;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+@Application
+public class AsyncResultApplicationTest {
+
+    @Test
+    public void main() throws Exception {
+        try (ApplicationContext context = SimpleApplication.run(AsyncResultApplicationTest.class)) {
+            QuoteService quoteService = context.getBean(QuoteService.class);
+            QuoteAspect quoteAspect = context.getBean(QuoteAspect.class);
+            TimedAspect timedAspect = context.getBean(TimedAspect.class);
+
+            CompletableFuture<Integer> quote = quoteService.quote("tea");
+            assertFalse(quote.isDone());
+            assertEquals(0, quoteAspect.getCalls());
+            assertEquals(0, timedAspect.getSnapshot("quote").getCount());
+
+            quoteService.getPending().complete(41);
+            assertEquals(42, quote.get(5, TimeUnit.SECONDS));
+            assertEquals(1, quoteAspect.getCalls());
+            assertEquals(1, timedAspect.getSnapshot("quote").getCount());
+
+            // Synchronous methods are timed by before and after advices, errors included
+            assertEquals(1, quoteService.fee(10));
+            assertThrows(IllegalArgumentException.class, () -> quoteService.fee(-1));
+            assertEquals(2, timedAspect.getSnapshot("fee").getCount());
+            assertEquals(1, timedAspect.getSnapshot("fee").getErrorCount());
+
+            // Exceptions of advices run after the result has failed complete the returned stage
+            assertEquals(5, quoteService.reserve(5).get(5, TimeUnit.SECONDS));
+            ExecutionException exception = assertThrows(ExecutionException.class, () -> quoteService.reserve(-1).get(5, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, exception.getCause());
+            assertEquals("Cannot reserve", exception.getCause().getMessage());
+        }
+    }
+}
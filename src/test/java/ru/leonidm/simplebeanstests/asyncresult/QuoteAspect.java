@@ -0,0 +1,29 @@
+package ru.leonidm.simplebeanstests.asyncresult;
+
+import ru.leonidm.simplebeans.proxy.aspects.After;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.ReturnValue;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Thrown;
+
+@Aspect
+public class QuoteAspect {
+
+    private volatile int calls;
+
+    @After("**.QuoteService.quote(java.lang.String)")
+    public Object addFee(@ReturnValue Integer price) {
+        calls++;
+        return price + 1;
+    }
+
+    @After("**.QuoteService.reserve(int)")
+    public void checkReserved(@Thrown Throwable thrown) {
+        if (thrown != null) {
+            throw new IllegalStateException("Cannot reserve");
+        }
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+}
@@ -0,0 +1,38 @@
+package ru.leonidm.simplebeanstests.asyncresult;
+
+import ru.leonidm.simplebeans.aspects.timed.Timed;
+import ru.leonidm.simplebeans.beans.Service;
+
+import java.util.concurrent.CompletableFuture;
+
+@Service
+public class QuoteService {
+
+    private final CompletableFuture<Integer> pending = new CompletableFuture<>();
+
+    @Timed("quote")
+    public CompletableFuture<Integer> quote(String item) {
+        return pending;
+    }
+
+    @Timed("fee")
+    public int fee(int price) {
+        if (price < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        return 1;
+    }
+
+    public CompletableFuture<Integer> reserve(int amount) {
+        if (amount < 0) {
+            return CompletableFuture.failedFuture(new IllegalArgumentException());
+        }
+
+        return CompletableFuture.completedFuture(amount);
+    }
+
+    public CompletableFuture<Integer> getPending() {
+        return pending;
+    }
+}
@@ -0,0 +1,44 @@
+package ru.leonidm.simplebeanstests.batch;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+@Application
+public class BatchApplicationTest {
+
+    @Test
+    public void main() throws Exception {
+        try (ApplicationContext context = SimpleApplication.run(BatchApplicationTest.class)) {
+            UserRepository userRepository = context.getBean(UserRepository.class);
+
+            ExecutorService executor = Executors.newFixedThreadPool(4);
+            try {
+                List<Future<String>> futures = new ArrayList<>();
+                for (int i = 0; i < 4; i++) {
+                    int id = i;
+                    futures.add(executor.submit(() -> userRepository.find(id)));
+                }
+
+                for (int i = 0; i < 4; i++) {
+                    assertEquals("user" + i, futures.get(i).get(5, TimeUnit.SECONDS));
+                }
+            } finally {
+                executor.shutdown();
+            }
+
+            assertEquals(5, userRepository.count("admin"));
+            assertEquals(List.of(4, 1), List.copyOf(userRepository.getBatchSizes()));
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package ru.leonidm.simplebeanstests.batch;
+
+import ru.leonidm.simplebeans.aspects.batch.Batched;
+import ru.leonidm.simplebeans.beans.Repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Repository
+public class UserRepository {
+
+    private final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+
+    @Batched(value = "findAll", maxSize = 4, maxDelay = 10000)
+    public String find(Integer id) {
+        throw new IllegalStateException("Must be served by findAll");
+    }
+
+    public List<String> findAll(List<Integer> ids) {
+        batchSizes.add(ids.size());
+        return ids.stream().map(id -> "user" + id).collect(Collectors.toList());
+    }
+
+    @Batched(value = "countAll", maxDelay = 20)
+    public Integer count(String name) {
+        throw new IllegalStateException("Must be served by countAll");
+    }
+
+    public Map<String, Integer> countAll(List<String> names) {
+        batchSizes.add(names.size());
+        return names.stream().distinct().collect(Collectors.toMap(Function.identity(), String::length));
+    }
+
+    public List<Integer> getBatchSizes() {
+        return batchSizes;
+    }
+}
@@ -0,0 +1,61 @@
+package ru.leonidm.simplebeanstests.bulkhead;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+import ru.leonidm.simplebeans.aspects.bulkhead.BulkheadAspect;
+import ru.leonidm.simplebeans.aspects.bulkhead.BulkheadFullException;
+import ru.leonidm.simplebeans.aspects.bulkhead.BulkheadStats;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@Application
+public class BulkheadApplicationTest {
+
+    @Test
+    public void main() throws Exception {
+        try (ApplicationContext context = SimpleApplication.run(BulkheadApplicationTest.class)) {
+            ReportService reportService = context.getBean(ReportService.class);
+            BulkheadAspect aspect = context.getBean(BulkheadAspect.class);
+
+            List<CompletableFuture<String>> futures = List.of(
+                    CompletableFuture.supplyAsync(() -> build(reportService, "a")),
+                    CompletableFuture.supplyAsync(() -> build(reportService, "b"))
+            );
+            assertTrue(reportService.getStarted().await(5, TimeUnit.SECONDS));
+
+            assertThrows(BulkheadFullException.class, () -> build(reportService, "c"));
+            assertThrows(BulkheadFullException.class, () -> reportService.preview("d"));
+
+            BulkheadStats stats = aspect.getStats("reports");
+            assertEquals(2, stats.getActiveCount());
+            assertEquals(2, stats.getRejectedCount());
+
+            reportService.getReleased().countDown();
+            for (CompletableFuture<String> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+
+            assertEquals("d", reportService.preview("d"));
+            assertEquals(0, aspect.getStats("reports").getActiveCount());
+
+            assertEquals("e", reportService.export("e"));
+            assertEquals(0, aspect.getStats("ReportService#export").getRejectedCount());
+        }
+    }
+
+    private static String build(ReportService reportService, String name) {
+        try {
+            return reportService.build(name);
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
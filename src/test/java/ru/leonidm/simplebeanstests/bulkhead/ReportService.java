@@ -0,0 +1,38 @@
+package ru.leonidm.simplebeanstests.bulkhead;
+
+import ru.leonidm.simplebeans.aspects.bulkhead.Bulkhead;
+import ru.leonidm.simplebeans.beans.Service;
+
+import java.util.concurrent.CountDownLatch;
+
+@Service
+public class ReportService {
+
+    private final CountDownLatch started = new CountDownLatch(2);
+    private final CountDownLatch released = new CountDownLatch(1);
+
+    @Bulkhead(value = "reports", maxConcurrent = 2)
+    public String build(String name) throws InterruptedException {
+        started.countDown();
+        released.await();
+        return name;
+    }
+
+    @Bulkhead(value = "reports", maxConcurrent = 2)
+    public String preview(String name) {
+        return name;
+    }
+
+    @Bulkhead(maxConcurrent = 1, maxWait = 5000, maxWaiting = 0)
+    public String export(String name) {
+        return name;
+    }
+
+    public CountDownLatch getStarted() {
+        return started;
+    }
+
+    public CountDownLatch getReleased() {
+        return released;
+    }
+}
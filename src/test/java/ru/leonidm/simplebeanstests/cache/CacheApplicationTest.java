@@ -0,0 +1,41 @@
+package ru.leonidm.simplebeanstests.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+import ru.leonidm.simplebeans.aspects.cache.CacheStats;
+import ru.leonidm.simplebeans.aspects.cache.CacheableAspect;
+
+@Application
+public class CacheApplicationTest {
+
+    @Test
+    public void main() throws NoSuchMethodException {
+        try (ApplicationContext context = SimpleApplication.run(CacheApplicationTest.class)) {
+            LookupComponent lookupComponent = context.getBean(LookupComponent.class);
+            for (int i = 0; i < 3; i++) {
+                assertEquals("A", lookupComponent.lookup("a"));
+                assertEquals(3, lookupComponent.sum(1, 2));
+            }
+            assertEquals(2, lookupComponent.getCalls());
+
+            assertEquals("B", lookupComponent.lookup("b"));
+            assertEquals("B", lookupComponent.lookup("b"));
+
+            // Rarely used key is not cached until it is used more often than cached ones
+            for (int i = 0; i < 5; i++) {
+                assertEquals("C", lookupComponent.lookup("c"));
+            }
+
+            CacheStats stats = context.getBean(CacheableAspect.class).getStats(LookupComponent.class.getMethod("lookup", String.class));
+            assertEquals(2, stats.getSize());
+            assertEquals(1, stats.getEvictionCount());
+            assertEquals(3, stats.getRejectionCount());
+            assertEquals(4, stats.getHitCount());
+            assertEquals(6, stats.getMissCount());
+        }
+    }
+}
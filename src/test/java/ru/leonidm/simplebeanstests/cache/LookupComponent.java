@@ -0,0 +1,26 @@
+package ru.leonidm.simplebeanstests.cache;
+
+import ru.leonidm.simplebeans.aspects.cache.Cacheable;
+import ru.leonidm.simplebeans.beans.Component;
+
+@Component
+public class LookupComponent {
+
+    private int calls;
+
+    @Cacheable(maxSize = 2)
+    public String lookup(String key) {
+        calls++;
+        return key.toUpperCase();
+    }
+
+    @Cacheable
+    public int sum(int a, int b) {
+        calls++;
+        return a + b;
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+}
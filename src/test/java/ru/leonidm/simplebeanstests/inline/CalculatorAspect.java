@@ -0,0 +1,45 @@
+package ru.leonidm.simplebeanstests.inline;
+
+import ru.leonidm.simplebeans.proxy.aspects.After;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.Before;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Arg;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Args;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Origin;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Result;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.ReturnValue;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.This;
+
+import java.lang.reflect.Method;
+import java.util.Set;
+
+@Aspect
+public class CalculatorAspect {
+
+    private Class<?> callerClass;
+
+    @Before("**.CalculatorComponent.add(int, long)")
+    public void before(@Args Object[] args) {
+        callerClass = StackWalker.getInstance(Set.of(StackWalker.Option.RETAIN_CLASS_REFERENCE, StackWalker.Option.SHOW_HIDDEN_FRAMES))
+                .walk(frames -> frames.skip(1).findFirst().orElseThrow().getDeclaringClass());
+        args[0] = (Integer) args[0] * 2;
+    }
+
+    @After("**.CalculatorComponent.add(int, long)")
+    public Object after(@This Object instance, @Origin Method method, @Result Object result) {
+        if (!(instance instanceof CalculatorComponent) || !method.getName().equals("add")) {
+            throw new IllegalStateException();
+        }
+
+        return (Long) result + 1;
+    }
+
+    @After("**.CalculatorComponent.multiply(int, int)")
+    public int afterMultiply(@Arg(1) int b, @ReturnValue int result) {
+        return result + b;
+    }
+
+    public Class<?> getCallerClass() {
+        return callerClass;
+    }
+}
@@ -0,0 +1,15 @@
+package ru.leonidm.simplebeanstests.inline;
+
+import ru.leonidm.simplebeans.beans.Component;
+
+@Component
+public class CalculatorComponent {
+
+    public long add(int a, long b) {
+        return a + b;
+    }
+
+    public int multiply(int a, int b) {
+        return a * b;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.leonidm.simplebeanstests.inline;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+import ru.leonidm.simplebeans.proxy.AdvancedProxy;
+
+@Application(properties = "simplebeans.aop.inline=true")
+public class InlineApplicationTest {
+
+    @Test
+    public void main() {
+        try (ApplicationContext context = SimpleApplication.run(InlineApplicationTest.class)) {
+            CalculatorComponent calculator = context.getBean(CalculatorComponent.class);
+            assertEquals(8, calculator.add(2, 3));
+            assertEquals(9, calculator.multiply(2, 3));
+
+            CalculatorAspect aspect = context.getBean(CalculatorAspect.class);
+            assertTrue(AdvancedProxy.isProxyClass(aspect.getCallerClass()));
+
+            context.unregisterAspect(aspect);
+            assertEquals(5, calculator.add(2, 3));
+            assertEquals(6, calculator.multiply(2, 3));
+
+            context.registerAspect(aspect);
+            assertEquals(8, calculator.add(2, 3));
+            assertEquals(9, calculator.multiply(2, 3));
+            assertEquals(8, context.getProxyFactory().newProxyInstance(new CalculatorComponent(), CalculatorComponent.class).add(2, 3));
+        }
+    }
+}
@@ -1,4 +1,7 @@
 package ru.leonidm.simplebeanstests.normal;
 
 public interface FooBean {
+
+    String getName();
+
 }
@@ -0,0 +1,14 @@
+package ru.leonidm.simplebeanstests.normal;
+
+import ru.leonidm.simplebeans.proxy.aspects.After;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Result;
+
+@Aspect
+public class FooBeanAspect {
+
+    @After("**.FooBean.getName()")
+    public String advice(@Result Object result) {
+        return result + "-proxied";
+    }
+}
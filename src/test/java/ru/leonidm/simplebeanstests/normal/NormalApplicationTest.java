@@ -3,6 +3,7 @@ package ru.leonidm.simplebeanstests.normal;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import org.jetbrains.annotations.NotNull;
@@ -16,8 +17,11 @@ import ru.leonidm.simplebeans.proxy.ProxyClass;
 import java.lang.reflect.Proxy;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
-@Application
+@Application(properties = "simplebeans.aop.pregenerate=true")
 public class NormalApplicationTest {
 
     private static ApplicationContext context;
@@ -32,15 +36,13 @@ public class NormalApplicationTest {
             assertFalse(Proxy.isProxyClass(clazz));
             assertFalse(AdvancedProxy.isProxyClass(clazz));
 
-            if (clazz == FooBean.class) {
-                assertTrue(Proxy.isProxyClass(bean.getClass()));
-                assertInstanceOf(Proxy.class, bean);
-            } else {
-                assertFalse(Proxy.isProxyClass(bean.getClass()));
-                assertInstanceOf(ProxyClass.class, bean);
-            }
+            assertFalse(Proxy.isProxyClass(bean.getClass()));
+            assertInstanceOf(ProxyClass.class, bean);
+            assertInstanceOf(clazz, bean);
 
             assertTrue(AdvancedProxy.isProxyClass(bean.getClass()));
+            assertTrue(bean.getClass().isHidden());
+            assertEquals(clazz, AdvancedProxy.getOriginalClass(bean.getClass()));
         }
 
         String string1 = context.getBean(String.class);
@@ -49,6 +51,10 @@ public class NormalApplicationTest {
         String string2 = context.getBean(String.class, "foo");
         assertEquals("foo-string<ru.leonidm.simplebeanstests.normal.FooBean@>", string2);
 
+        FooBean fooBean = context.getBean(FooBean.class);
+        assertEquals("foo-proxied", fooBean.getName());
+        assertEquals("ru.leonidm.simplebeanstests.normal.FooBean@", fooBean.toString());
+
         SomeStatement someStatement = context.getBean(SomeConnection.class).createStatement();
         assertTrue(someStatement.isSomeParameter());
 
@@ -62,6 +68,17 @@ public class NormalApplicationTest {
 
         String string3 = context.getBean(String.class, "objects");
         assertEquals("objects<[1, df, 3.0]>", string3);
+
+        Set<Class<?>> proxyClasses = IntStream.range(0, 16).parallel()
+                .mapToObj(i -> context.getProxyFactory().getProxyClass(Set.of(Runnable.class, FooBean.class)))
+                .collect(Collectors.toSet());
+        assertEquals(1, proxyClasses.size());
+
+        context.close();
+        assertThrows(IllegalStateException.class, () -> context.getProxyFactory().getProxyClass(TestComponent.class));
+        assertEquals("foo-proxied", fooBean.getName());
+
+        SimpleApplication.run(NormalApplicationTest.class).close();
     }
 
     @NotNull
@@ -16,6 +16,11 @@ public class TestConfiguration {
     @Bean
     public FooBean fooBean() {
         return new FooBean() {
+            @Override
+            public String getName() {
+                return "foo";
+            }
+
             @Override
             public String toString() {
                 return "ru.leonidm.simplebeanstests.normal.FooBean@";
@@ -0,0 +1,21 @@
+package ru.leonidm.simplebeanstests.profile;
+
+import ru.leonidm.simplebeans.aspects.profile.Profiled;
+import ru.leonidm.simplebeans.beans.Service;
+
+@Service
+public class ImageService {
+
+    private byte[] lastImage;
+
+    @Profiled
+    public int render(int size) {
+        lastImage = new byte[size];
+        return lastImage.length;
+    }
+
+    public int resize(int size) {
+        lastImage = new byte[size];
+        return lastImage.length;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.leonidm.simplebeanstests.profile;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+import ru.leonidm.simplebeans.aspects.profile.ProfileSnapshot;
+import ru.leonidm.simplebeans.aspects.profile.ProfiledAspect;
+
+@Application
+public class ProfileApplicationTest {
+
+    @Test
+    public void main() {
+        try (ApplicationContext context = SimpleApplication.run(ProfileApplicationTest.class)) {
+            ImageService imageService = context.getBean(ImageService.class);
+            ProfiledAspect aspect = context.getBean(ProfiledAspect.class);
+
+            assertEquals(1_000_000, imageService.render(1_000_000));
+            assertEquals(1_000_000, imageService.render(1_000_000));
+
+            ProfileSnapshot snapshot = aspect.getSnapshot("ImageService#render");
+            assertEquals(2, snapshot.getCallCount());
+            assertTrue(snapshot.getAllocatedBytes() >= 2_000_000, snapshot.toString());
+            assertTrue(snapshot.getCpuTimeNanos() >= 0, snapshot.toString());
+
+            assertEquals(1_000, imageService.resize(1_000));
+            assertNull(aspect.getSnapshot("ImageService#resize"));
+        }
+
+        try (ApplicationContext context = SimpleApplication.run(MaskApplication.class)) {
+            ImageService imageService = context.getBean(ImageService.class);
+            ProfiledAspect aspect = context.getBean(ProfiledAspect.class);
+
+            assertEquals(1_000_000, imageService.resize(1_000_000));
+            assertEquals(1_000_000, imageService.render(1_000_000));
+
+            ProfileSnapshot snapshot = aspect.getSnapshot("ImageService#resize");
+            assertEquals(1, snapshot.getCallCount());
+            assertTrue(snapshot.getAllocatedBytes() >= 1_000_000, snapshot.toString());
+            assertEquals(1, aspect.getSnapshot("ImageService#render").getCallCount());
+        }
+    }
+
+    @Application(properties = "simplebeans.profile.mask=**.ImageService.*(int)")
+    public static class MaskApplication {
+    }
+}
@@ -0,0 +1,18 @@
+package ru.leonidm.simplebeanstests.register;
+
+import ru.leonidm.simplebeans.proxy.aspects.Around;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.Before;
+
+/**
+ * Before advice is valid, but the around one is void, so the aspect cannot be registered
+ */
+@Aspect
+public class HalfValidAspect {
+
+    @Before("**.NameComponent.name()")
+    @Around("**.NameComponent.name()")
+    public void log() {
+
+    }
+}
@@ -0,0 +1,48 @@
+package ru.leonidm.simplebeanstests.register;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+import ru.leonidm.simplebeans.proxy.aspects.PointCutType;
+import ru.leonidm.simplebeanstests.register.beans.NameComponent;
+
+import java.lang.reflect.Method;
+
+@Application(packageName = "ru.leonidm.simplebeanstests.register.beans")
+public class RegisterApplicationTest {
+
+    @Test
+    public void main() throws NoSuchMethodException {
+        try (ApplicationContext context = SimpleApplication.run(RegisterApplicationTest.class)) {
+            NameComponent nameComponent = context.getBean(NameComponent.class);
+            assertEquals("world", nameComponent.name());
+
+            // Method had no advices when its proxy class was generated
+            UpperCaseAspect aspect = new UpperCaseAspect();
+            context.registerAspect(aspect);
+            assertEquals("WORLD", nameComponent.name());
+
+            context.unregisterAspect(aspect);
+            assertEquals("world", nameComponent.name());
+
+            // Bindings are checked when the aspect is registered, not on the first call
+            assertThrows(IllegalStateException.class, () -> context.registerAspect(new WrongBindingAspect()));
+            assertEquals("world", nameComponent.name());
+
+            context.registerAspect(aspect);
+            assertEquals("WORLD", nameComponent.name());
+
+            // Advices of the aspect that failed are not left registered
+            Method name = NameComponent.class.getMethod("name");
+            assertThrows(IllegalStateException.class, () -> context.registerAspect(new HalfValidAspect()));
+            context.unregisterAspect(aspect);
+            assertEquals("world", nameComponent.name());
+            assertEquals(0, context.getPointCuts(name, PointCutType.BEFORE).size());
+            assertEquals(0, context.getPointCuts(name, PointCutType.AROUND).size());
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package ru.leonidm.simplebeanstests.register;
+
+import ru.leonidm.simplebeans.proxy.aspects.After;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.ReturnValue;
+
+/**
+ * Aspect outside of the application package, it is registered only at runtime
+ */
+@Aspect
+public class UpperCaseAspect {
+
+    @After("**.NameComponent.name()")
+    public String upperCase(@ReturnValue String result) {
+        return result.toUpperCase();
+    }
+}
@@ -0,0 +1,17 @@
+package ru.leonidm.simplebeanstests.register;
+
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.Before;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Arg;
+
+/**
+ * Binds argument that the advised method does not have, so it cannot be registered
+ */
+@Aspect
+public class WrongBindingAspect {
+
+    @Before("**.NameComponent.name()")
+    public void log(@Arg(0) long id) {
+
+    }
+}
@@ -0,0 +1,11 @@
+package ru.leonidm.simplebeanstests.register.beans;
+
+import ru.leonidm.simplebeans.beans.Component;
+
+@Component
+public class NameComponent {
+
+    public String name() {
+        return "world";
+    }
+}
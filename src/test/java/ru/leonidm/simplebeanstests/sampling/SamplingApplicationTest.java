@@ -0,0 +1,52 @@
+package ru.leonidm.simplebeanstests.sampling;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.management.ThreadMXBean;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+
+import java.lang.management.ManagementFactory;
+
+@Application(properties = "simplebeans.aop.inline=true")
+public class SamplingApplicationTest {
+
+    private static final int ITERATIONS = 100_000;
+
+    @Test
+    public void main() {
+        try (ApplicationContext context = SimpleApplication.run(SamplingApplicationTest.class)) {
+            SearchComponent searchComponent = context.getBean(SearchComponent.class);
+            TraceAspect traceAspect = context.getBean(TraceAspect.class);
+
+            for (int i = 0; i < 4000; i++) {
+                assertEquals(3, searchComponent.search("tea"));
+            }
+
+            int traced = traceAspect.getTraced();
+            assertTrue(traced > 700 && traced < 1300, "Traced " + traced + " of 4000 calls");
+
+            // Skipped calls of inlined sampled advice do not collect arguments
+            indexMany(searchComponent);
+
+            ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            indexMany(searchComponent);
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            assertTrue(allocated < ITERATIONS, "Sampled calls allocated %d bytes".formatted(allocated));
+            assertTrue(traceAspect.getIndexed() > 0 && traceAspect.getIndexed() < ITERATIONS / 100);
+        }
+    }
+
+    private static void indexMany(SearchComponent searchComponent) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            searchComponent.index(i);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package ru.leonidm.simplebeanstests.sampling;
+
+import ru.leonidm.simplebeans.beans.Component;
+
+@Component
+public class SearchComponent {
+
+    public int search(String query) {
+        return query.length();
+    }
+
+    public int index(int position) {
+        return position + 1;
+    }
+}
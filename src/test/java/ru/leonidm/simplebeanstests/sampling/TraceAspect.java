@@ -0,0 +1,33 @@
+package ru.leonidm.simplebeanstests.sampling;
+
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.Before;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Arg;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Args;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Aspect
+public class TraceAspect {
+
+    private final AtomicInteger traced = new AtomicInteger();
+    private final AtomicInteger indexed = new AtomicInteger();
+
+    @Before(value = "**.SearchComponent.search(java.lang.String)", sample = 0.25)
+    public void trace(@Arg(0) String query) {
+        traced.incrementAndGet();
+    }
+
+    @Before(value = "**.SearchComponent.index(int)", sample = 0.001)
+    public void traceIndex(@Args Object[] args) {
+        indexed.incrementAndGet();
+    }
+
+    public int getTraced() {
+        return traced.get();
+    }
+
+    public int getIndexed() {
+        return indexed.get();
+    }
+}
@@ -0,0 +1,35 @@
+package ru.leonidm.simplebeanstests.singleflight;
+
+import ru.leonidm.simplebeans.aspects.singleflight.SingleFlight;
+import ru.leonidm.simplebeans.beans.Service;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Service
+public class PriceService {
+
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch released = new CountDownLatch(1);
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @SingleFlight
+    public Integer load(String item) throws InterruptedException {
+        calls.incrementAndGet();
+        started.countDown();
+        released.await();
+        return item.length();
+    }
+
+    public CountDownLatch getStarted() {
+        return started;
+    }
+
+    public CountDownLatch getReleased() {
+        return released;
+    }
+
+    public int getCalls() {
+        return calls.get();
+    }
+}
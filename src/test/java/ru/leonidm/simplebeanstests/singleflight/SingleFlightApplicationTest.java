@@ -0,0 +1,57 @@
+package ru.leonidm.simplebeanstests.singleflight;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+import ru.leonidm.simplebeans.aspects.singleflight.SingleFlightAspect;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+@Application
+public class SingleFlightApplicationTest {
+
+    @Test
+    public void main() throws Exception {
+        try (ApplicationContext context = SimpleApplication.run(SingleFlightApplicationTest.class)) {
+            PriceService priceService = context.getBean(PriceService.class);
+            SingleFlightAspect aspect = context.getBean(SingleFlightAspect.class);
+
+            List<CompletableFuture<Integer>> futures = new ArrayList<>();
+            futures.add(CompletableFuture.supplyAsync(() -> load(priceService)));
+            assertTrue(priceService.getStarted().await(5, TimeUnit.SECONDS));
+
+            for (int i = 0; i < 3; i++) {
+                futures.add(CompletableFuture.supplyAsync(() -> load(priceService)));
+            }
+
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (aspect.getSharedCount() < 3 && System.nanoTime() < deadline) {
+                Thread.onSpinWait();
+            }
+
+            priceService.getReleased().countDown();
+            for (CompletableFuture<Integer> future : futures) {
+                assertEquals(6, future.get(5, TimeUnit.SECONDS));
+            }
+
+            assertEquals(1, priceService.getCalls());
+            assertEquals(6, load(priceService));
+            assertEquals(2, priceService.getCalls());
+        }
+    }
+
+    private static Integer load(PriceService priceService) {
+        try {
+            return priceService.load("coffee");
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package ru.leonidm.simplebeanstests.timed;
+
+import ru.leonidm.simplebeans.aspects.timed.Timed;
+import ru.leonidm.simplebeans.beans.Component;
+
+@Component
+public class ReportComponent {
+
+    @Timed
+    public int build(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException();
+        }
+
+        return size * 2;
+    }
+
+    @Timed("reports.export")
+    public String export() {
+        return "report";
+    }
+}
@@ -0,0 +1,62 @@
+package ru.leonidm.simplebeanstests.timed;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.management.ThreadMXBean;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+import ru.leonidm.simplebeans.aspects.timed.HistogramSnapshot;
+import ru.leonidm.simplebeans.aspects.timed.TimedAspect;
+
+import java.lang.management.ManagementFactory;
+
+@Application(properties = "simplebeans.aop.inline=true")
+public class TimedApplicationTest {
+
+    private static final int ITERATIONS = 100_000;
+
+    @Test
+    public void main() {
+        try (ApplicationContext context = SimpleApplication.run(TimedApplicationTest.class)) {
+            ReportComponent reportComponent = context.getBean(ReportComponent.class);
+            for (int i = 0; i < 100; i++) {
+                assertEquals(i * 2, reportComponent.build(i));
+            }
+            assertThrows(IllegalArgumentException.class, () -> reportComponent.build(-1));
+            assertEquals("report", reportComponent.export());
+
+            TimedAspect timedAspect = context.getBean(TimedAspect.class);
+            HistogramSnapshot build = timedAspect.getSnapshot("ReportComponent#build");
+            assertEquals(101, build.getCount());
+            assertEquals(1, build.getErrorCount());
+            assertTrue(build.getPercentileNanos(50) <= build.getPercentileNanos(99));
+            assertTrue(build.getPercentileNanos(99) <= build.getMaxNanos());
+
+            assertEquals(1, timedAspect.getSnapshot("reports.export").getCount());
+            assertEquals(2, timedAspect.getSnapshots().size());
+
+            // Inlined timing advices allocate nothing
+            buildMany(reportComponent);
+
+            ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            buildMany(reportComponent);
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            assertTrue(allocated < ITERATIONS, "Timed calls allocated %d bytes".formatted(allocated));
+            assertEquals(101 + 2 * ITERATIONS, timedAspect.getSnapshot("ReportComponent#build").getCount());
+        }
+    }
+
+    private static void buildMany(ReportComponent reportComponent) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            reportComponent.build(i);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package ru.leonidm.simplebeanstests.toggle;
+
+import ru.leonidm.simplebeans.proxy.aspects.After;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.Before;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.ReturnValue;
+
+import java.util.Set;
+
+@Aspect
+public class CounterAspect {
+
+    private int calls;
+    private int checks;
+    private Class<?> callerClass;
+
+    @Before("**.CounterComponent.increment(int)")
+    public void before() {
+        calls++;
+        callerClass = StackWalker.getInstance(Set.of(StackWalker.Option.RETAIN_CLASS_REFERENCE, StackWalker.Option.SHOW_HIDDEN_FRAMES))
+                .walk(frames -> frames.skip(1).findFirst().orElseThrow().getDeclaringClass());
+    }
+
+    @After("**.CounterComponent.increment(int)")
+    public int multiply(@ReturnValue int result) {
+        return result * 10;
+    }
+
+    @Before("**.CounterComponent.check(int)")
+    public void beforeCheck() {
+        checks++;
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+
+    public int getChecks() {
+        return checks;
+    }
+
+    public Class<?> getCallerClass() {
+        return callerClass;
+    }
+
+    public void reset() {
+        callerClass = null;
+    }
+}
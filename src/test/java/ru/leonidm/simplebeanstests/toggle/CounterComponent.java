@@ -0,0 +1,26 @@
+package ru.leonidm.simplebeanstests.toggle;
+
+import ru.leonidm.simplebeans.beans.Component;
+
+import java.io.IOException;
+
+@Component
+public class CounterComponent {
+
+    private int calls;
+
+    public int increment(int value) {
+        calls++;
+        return value + 1;
+    }
+
+    public void check(int value) throws IOException {
+        if (value < 0) {
+            throw new IOException("Negative value");
+        }
+    }
+
+    public int getCalls() {
+        return calls;
+    }
+}
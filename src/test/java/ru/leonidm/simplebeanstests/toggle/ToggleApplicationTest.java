@@ -0,0 +1,84 @@
+package ru.leonidm.simplebeanstests.toggle;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+import ru.leonidm.simplebeans.proxy.AdvancedProxy;
+
+import java.io.IOException;
+import java.lang.reflect.Method;
+
+@Application(properties = "simplebeans.aop.inline=true")
+public class ToggleApplicationTest {
+
+    @Test
+    public void main() throws NoSuchMethodException {
+        try (ApplicationContext context = SimpleApplication.run(ToggleApplicationTest.class)) {
+            CounterComponent counter = context.getBean(CounterComponent.class);
+            CounterAspect aspect = context.getBean(CounterAspect.class);
+            Class<?> proxyClass = context.getProxyFactory().getProxyClass(CounterComponent.class);
+
+            assertEquals(20, counter.increment(1));
+            assertEquals(1, aspect.getCalls());
+            assertTrue(AdvancedProxy.isProxyClass(aspect.getCallerClass()));
+
+            assertTrue(context.setPointCutEnabled(CounterAspect.class.getMethod("multiply", int.class), false));
+            assertEquals(2, counter.increment(1));
+            assertEquals(2, aspect.getCalls());
+
+            assertTrue(context.setAspectEnabled(CounterAspect.class, false));
+            assertFalse(context.setAspectEnabled(CounterAspect.class, false));
+            aspect.reset();
+            assertEquals(2, counter.increment(1));
+            assertEquals(2, aspect.getCalls());
+            assertNull(aspect.getCallerClass());
+            assertEquals(3, counter.getCalls());
+
+            // Toggles neither generate proxy classes again nor make inlined advices fall back to the proxy method
+            assertTrue(context.setAspectEnabled(CounterAspect.class, true));
+            assertEquals(20, counter.increment(1));
+            assertEquals(3, aspect.getCalls());
+            assertTrue(AdvancedProxy.isProxyClass(aspect.getCallerClass()));
+            assertSame(proxyClass, context.getProxyFactory().getProxyClass(CounterComponent.class));
+
+            assertThrownAsIs(context);
+        }
+
+        try (ApplicationContext context = SimpleApplication.run(ProxyMethodApplication.class)) {
+            assertThrownAsIs(context);
+        }
+    }
+
+    /**
+     * Exception of the method does not depend on whether its advices are inlined, run by the proxy method or skipped
+     */
+    private static void assertThrownAsIs(ApplicationContext context) throws NoSuchMethodException {
+        CounterComponent counter = context.getBean(CounterComponent.class);
+        CounterAspect aspect = context.getBean(CounterAspect.class);
+        Method beforeCheck = CounterAspect.class.getMethod("beforeCheck");
+
+        assertThrows(IOException.class, () -> counter.check(-1));
+        assertEquals(1, aspect.getChecks());
+
+        assertTrue(context.setPointCutEnabled(beforeCheck, false));
+        assertThrows(IOException.class, () -> counter.check(-1));
+        assertEquals(1, aspect.getChecks());
+
+        assertTrue(context.setPointCutEnabled(beforeCheck, true));
+        assertThrows(IOException.class, () -> counter.check(-1));
+        assertEquals(2, aspect.getChecks());
+    }
+
+    @Application
+    public static class ProxyMethodApplication {
+
+    }
+}
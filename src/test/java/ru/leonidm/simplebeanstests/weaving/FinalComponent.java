@@ -0,0 +1,22 @@
+package ru.leonidm.simplebeanstests.weaving;
+
+import org.jetbrains.annotations.NotNull;
+import ru.leonidm.simplebeans.beans.Component;
+
+@Component
+public final class FinalComponent {
+
+    @NotNull
+    public String greet(@NotNull String name) {
+        return "Hello, " + decorate(name);
+    }
+
+    public int add(int a, int b) {
+        return a + b;
+    }
+
+    @NotNull
+    private String decorate(@NotNull String name) {
+        return name;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.leonidm.simplebeanstests.weaving;
+
+import ru.leonidm.simplebeans.proxy.aspects.After;
+import ru.leonidm.simplebeans.proxy.aspects.Aspect;
+import ru.leonidm.simplebeans.proxy.aspects.Before;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Args;
+import ru.leonidm.simplebeans.proxy.aspects.arguments.Result;
+
+@Aspect
+public class FinalComponentAspect {
+
+    private int additions;
+
+    @Before("**.FinalComponent.greet(java.lang.String)")
+    public void before(@Args Object[] args) {
+        args[0] = args[0].toString().toUpperCase();
+    }
+
+    @After("**.FinalComponent.decorate(java.lang.String)")
+    public String after(@Result Object result) {
+        return result + "!";
+    }
+
+    @Before("**.FinalComponent.add(int, int)")
+    public void beforeAdd() {
+        additions++;
+    }
+
+    public int getAdditions() {
+        return additions;
+    }
+}
@@ -0,0 +1,58 @@
+package ru.leonidm.simplebeanstests.weaving;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.sun.management.ThreadMXBean;
+
+import org.junit.jupiter.api.Test;
+import ru.leonidm.simplebeans.applications.Application;
+import ru.leonidm.simplebeans.applications.ApplicationContext;
+import ru.leonidm.simplebeans.applications.SimpleApplication;
+import ru.leonidm.simplebeans.proxy.weaving.WeavingAgent;
+
+import java.lang.management.ManagementFactory;
+
+@Application(properties = "simplebeans.aop.engine=weaving")
+public class WeavingApplicationTest {
+
+    private static final int ITERATIONS = 100_000;
+
+    @Test
+    public void main() throws NoSuchMethodException {
+        if (!WeavingAgent.isInstalled()) {
+            assertThrows(IllegalStateException.class, () -> SimpleApplication.run(WeavingApplicationTest.class));
+            return;
+        }
+
+        try (ApplicationContext context = SimpleApplication.run(WeavingApplicationTest.class)) {
+            FinalComponent finalComponent = context.getBean(FinalComponent.class);
+            assertEquals(FinalComponent.class, finalComponent.getClass());
+            assertEquals("Hello, WORLD!", finalComponent.greet("world"));
+
+            FinalComponentAspect aspect = context.getBean(FinalComponentAspect.class);
+            assertEquals(3, finalComponent.add(1, 2));
+            assertEquals(1, aspect.getAdditions());
+
+            // Woven method without active advices does not collect its arguments
+            context.setPointCutEnabled(FinalComponentAspect.class.getMethod("beforeAdd"), false);
+            addMany(finalComponent);
+
+            ThreadMXBean threadMXBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long threadId = Thread.currentThread().getId();
+            long allocatedBefore = threadMXBean.getThreadAllocatedBytes(threadId);
+            addMany(finalComponent);
+            long allocated = threadMXBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+            assertTrue(allocated < ITERATIONS, "Calls without active advices allocated %d bytes".formatted(allocated));
+            assertEquals(1, aspect.getAdditions());
+        }
+    }
+
+    private static void addMany(FinalComponent finalComponent) {
+        for (int i = 0; i < ITERATIONS; i++) {
+            finalComponent.add(i, 1);
+        }
+    }
+}